@@ -0,0 +1,173 @@
+package com.glez.frontendservice.benchmark;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.pdfbox.pdmodel.graphics.image.JPEGFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates the benchmark inputs. Every document is built from a fixed seed, so runs on different
+ * machines and commits measure the same bytes.
+ */
+public final class BenchmarkDocuments {
+
+    public enum Corpus {
+        /** Long pages of plain body text in two fonts. */
+        TEXT_HEAVY,
+        /** A few lines of text around several images per page, half JPEG and half lossless. */
+        IMAGE_HEAVY,
+        /** Many short pages. */
+        MANY_PAGES,
+        /** Every line in a different font, size and colour. */
+        MANY_FONTS
+    }
+
+    private static final long SEED = 42L;
+    private static final float MARGIN = 50f;
+    private static final float LEADING = 14f;
+
+    private static final List<String> WORDS = List.of(
+            "lorem", "ipsum", "dolor", "sit", "amet", "consectetur", "adipiscing", "elit", "sed", "do",
+            "eiusmod", "tempor", "incididunt", "ut", "labore", "et", "dolore", "magna", "aliqua", "enim",
+            "minim", "veniam", "quis", "nostrud", "exercitation", "ullamco", "laboris", "nisi", "aliquip");
+
+    /** Standard 14 fonts that can encode the latin text above; Symbol and ZapfDingbats cannot. */
+    private static final List<Standard14Fonts.FontName> TEXT_FONTS = List.of(
+            Standard14Fonts.FontName.HELVETICA, Standard14Fonts.FontName.HELVETICA_BOLD,
+            Standard14Fonts.FontName.HELVETICA_OBLIQUE, Standard14Fonts.FontName.HELVETICA_BOLD_OBLIQUE,
+            Standard14Fonts.FontName.TIMES_ROMAN, Standard14Fonts.FontName.TIMES_BOLD,
+            Standard14Fonts.FontName.TIMES_ITALIC, Standard14Fonts.FontName.TIMES_BOLD_ITALIC,
+            Standard14Fonts.FontName.COURIER, Standard14Fonts.FontName.COURIER_BOLD,
+            Standard14Fonts.FontName.COURIER_OBLIQUE, Standard14Fonts.FontName.COURIER_BOLD_OBLIQUE);
+
+    private BenchmarkDocuments() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    public static List<Standard14Fonts.FontName> textFonts() {
+        return TEXT_FONTS;
+    }
+
+    public static void write(Corpus corpus, Path target) throws IOException {
+        switch (corpus) {
+            case TEXT_HEAVY -> writeText(target, 20, 50, 2);
+            case IMAGE_HEAVY -> writeImages(target, 10, 4);
+            case MANY_PAGES -> writeText(target, 300, 10, 2);
+            case MANY_FONTS -> writeText(target, 10, 50, TEXT_FONTS.size());
+        }
+    }
+
+    /** Text-only document with a given number of pages, for measuring how extraction scales with length. */
+    public static void writeTextPages(Path target, int pages) throws IOException {
+        writeText(target, pages, 40, 2);
+    }
+
+    private static void writeText(Path target, int pages, int linesPerPage, int fontCount) throws IOException {
+        Random random = new Random(SEED);
+        try (PDDocument document = new PDDocument()) {
+            PDType1Font[] fonts = fonts(fontCount);
+            for (int p = 0; p < pages; p++) {
+                PDPage page = new PDPage(PDRectangle.A4);
+                document.addPage(page);
+                try (PDPageContentStream cs = new PDPageContentStream(document, page)) {
+                    float y = page.getMediaBox().getHeight() - MARGIN;
+                    for (int line = 0; line < linesPerPage && y > MARGIN; line++) {
+                        PDType1Font font = fonts[line % fonts.length];
+                        float size = fontCount > 2 ? 8f + (line % 5) * 2f : 10f;
+                        cs.beginText();
+                        cs.setFont(font, size);
+                        if (fontCount > 2) {
+                            cs.setNonStrokingColor(random.nextFloat(), random.nextFloat(), random.nextFloat());
+                        }
+                        cs.newLineAtOffset(MARGIN, y);
+                        cs.showText(sentence(random, 8 + random.nextInt(6)));
+                        cs.endText();
+                        y -= Math.max(LEADING, size * 1.2f);
+                    }
+                }
+            }
+            document.save(target.toFile());
+        }
+    }
+
+    private static void writeImages(Path target, int pages, int imagesPerPage) throws IOException {
+        Random random = new Random(SEED);
+        try (PDDocument document = new PDDocument()) {
+            PDType1Font font = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+            // Some images repeat across pages, as logos and headers do in real documents.
+            PDImageXObject[] images = new PDImageXObject[imagesPerPage * 2];
+            for (int i = 0; i < images.length; i++) {
+                BufferedImage image = image(random, 320, 240);
+                images[i] = i % 2 == 0
+                        ? JPEGFactory.createFromImage(document, image, 0.8f)
+                        : LosslessFactory.createFromImage(document, image);
+            }
+
+            for (int p = 0; p < pages; p++) {
+                PDPage page = new PDPage(PDRectangle.A4);
+                document.addPage(page);
+                try (PDPageContentStream cs = new PDPageContentStream(document, page)) {
+                    float top = page.getMediaBox().getHeight() - MARGIN;
+                    cs.beginText();
+                    cs.setFont(font, 12f);
+                    cs.newLineAtOffset(MARGIN, top);
+                    cs.showText(sentence(random, 10));
+                    cs.endText();
+                    for (int i = 0; i < imagesPerPage; i++) {
+                        PDImageXObject image = images[(p + i) % images.length];
+                        float x = MARGIN + (i % 2) * 250f;
+                        float y = top - 200f - (i / 2) * 200f;
+                        cs.drawImage(image, x, y, 240f, 180f);
+                    }
+                }
+            }
+            document.save(target.toFile());
+        }
+    }
+
+    /** Walks the font list family by family first, so two fonts are Helvetica and Times Roman. */
+    private static PDType1Font[] fonts(int count) {
+        PDType1Font[] fonts = new PDType1Font[count];
+        for (int i = 0; i < count; i++) {
+            fonts[i] = new PDType1Font(TEXT_FONTS.get(i * 4 % TEXT_FONTS.size() + i * 4 / TEXT_FONTS.size()));
+        }
+        return fonts;
+    }
+
+    private static String sentence(Random random, int words) {
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                sentence.append(' ');
+            }
+            sentence.append(WORDS.get(random.nextInt(WORDS.size())));
+        }
+        return sentence.toString();
+    }
+
+    /** Smooth gradient with noise, so that both JPEG and Flate have realistic work to do. */
+    private static BufferedImage image(Random random, int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int base = random.nextInt(0xFFFFFF);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int r = ((base >> 16) + x / 2 + random.nextInt(16)) & 0xFF;
+                int g = ((base >> 8) + y / 2 + random.nextInt(16)) & 0xFF;
+                int b = (base + (x + y) / 4 + random.nextInt(16)) & 0xFF;
+                image.setRGB(x, y, (r << 16) | (g << 8) | b);
+            }
+        }
+        return image;
+    }
+}
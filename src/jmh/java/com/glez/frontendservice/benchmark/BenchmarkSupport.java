@@ -0,0 +1,39 @@
+package com.glez.frontendservice.benchmark;
+
+import com.glez.frontendservice.config.PdfProperties;
+import com.glez.frontendservice.metrics.PdfMetrics;
+import com.glez.frontendservice.pdf.converter.PDFToJsonConverter;
+import com.glez.frontendservice.pdf.converter.PageCache;
+import com.glez.frontendservice.pdf.converter.PageExtractionPool;
+import com.glez.frontendservice.pdf.image.ImageStore;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Builds the converter the way the application context does, without starting Spring.
+ */
+final class BenchmarkSupport {
+
+    private BenchmarkSupport() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    static PdfProperties properties(boolean parallel) {
+        PdfProperties properties = new PdfProperties();
+        properties.getExtraction().getParallel().setEnabled(parallel);
+        // Every invocation extracts the same document; reused pages would measure the cache instead.
+        properties.getCache().getPages().setEnabled(false);
+        return properties;
+    }
+
+    static PDFToJsonConverter converter(PdfProperties properties, PageExtractionPool pool) {
+        return new PDFToJsonConverter(properties, pool, new ImageStore(properties), new PageCache(properties),
+                PdfMetrics.noop());
+    }
+
+    static Path tempPdf(String prefix) throws IOException {
+        return Files.createTempFile(prefix, ".pdf");
+    }
+}
@@ -0,0 +1,78 @@
+package com.glez.frontendservice.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.glez.frontendservice.config.PdfProperties;
+import com.glez.frontendservice.pdf.converter.ExtractionOptions;
+import com.glez.frontendservice.pdf.converter.PageExtractionPool;
+import com.glez.frontendservice.pdf.model.PDFDocument;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole-document serialization: the streaming {@link PDFDocument#writeTo}/{@link PDFDocument#readFrom}
+ * used by the API, and the {@link PDFDocument#toJson()}/{@link PDFDocument#fromJson(JSONObject)}
+ * adapters over them.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+
+    @Param({"TEXT_HEAVY", "IMAGE_HEAVY", "MANY_PAGES", "MANY_FONTS"})
+    public BenchmarkDocuments.Corpus corpus;
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private PDFDocument document;
+    private String json;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Path pdfFile = BenchmarkSupport.tempPdf("bench-" + corpus);
+        PdfProperties properties = BenchmarkSupport.properties(false);
+        PageExtractionPool pool = new PageExtractionPool(properties);
+        try {
+            BenchmarkDocuments.write(corpus, pdfFile);
+            document = BenchmarkSupport.converter(properties, pool).convertPdfToDocumentModel(pdfFile, ExtractionOptions.defaults());
+        } finally {
+            pool.destroy();
+            Files.deleteIfExists(pdfFile);
+        }
+        json = document.toJson().toString();
+    }
+
+    @Benchmark
+    public void writeStreaming() throws IOException {
+        try (JsonGenerator generator = jsonFactory.createGenerator(OutputStream.nullOutputStream())) {
+            document.writeTo(generator);
+        }
+    }
+
+    @Benchmark
+    public PDFDocument readStreaming() throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            parser.nextToken();
+            return PDFDocument.readFrom(parser);
+        }
+    }
+
+    @Benchmark
+    public String toJson() {
+        return document.toJson().toString();
+    }
+
+    @Benchmark
+    public PDFDocument fromJson() {
+        return PDFDocument.fromJson(new JSONObject(json));
+    }
+}
@@ -0,0 +1,123 @@
+package com.glez.frontendservice.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.glez.frontendservice.config.PdfProperties;
+import com.glez.frontendservice.metrics.CountingOutputStream;
+import com.glez.frontendservice.pdf.converter.ExtractionOptions;
+import com.glez.frontendservice.pdf.converter.PDFToJsonConverter;
+import com.glez.frontendservice.pdf.converter.PageExtractionPool;
+import com.glez.frontendservice.pdf.model.PDFDocument;
+import com.glez.frontendservice.pdf.model.PDFPage;
+import com.glez.frontendservice.pdf.model.StyledText;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The flat glyph list against the layout tree: the cost of extracting and serializing each, and the
+ * sort-and-group pass clients run on the flat form to get lines back. The serialized size of both
+ * forms is printed once per trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LayoutBenchmark {
+
+    private static final float BASELINE_TOLERANCE = 1f;
+
+    @Param({"TEXT_HEAVY", "MANY_PAGES"})
+    public BenchmarkDocuments.Corpus corpus;
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private Path pdfFile;
+    private PageExtractionPool pool;
+    private PDFToJsonConverter converter;
+    private ExtractionOptions flatOptions;
+    private ExtractionOptions layoutOptions;
+    private PDFDocument flatDocument;
+    private PDFDocument layoutDocument;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        pdfFile = BenchmarkSupport.tempPdf("bench-" + corpus);
+        BenchmarkDocuments.write(corpus, pdfFile);
+
+        PdfProperties properties = BenchmarkSupport.properties(false);
+        pool = new PageExtractionPool(properties);
+        converter = BenchmarkSupport.converter(properties, pool);
+        flatOptions = ExtractionOptions.fromParameters("glyph", false, "inline", null, "text");
+        layoutOptions = ExtractionOptions.fromParameters("glyph", false, "inline", null, "layout");
+
+        flatDocument = converter.convertPdfToDocumentModel(pdfFile, flatOptions);
+        layoutDocument = converter.convertPdfToDocumentModel(pdfFile, layoutOptions);
+        System.out.printf("%n%s: flat %d bytes, layout %d bytes%n", corpus,
+                serializedSize(flatDocument), serializedSize(layoutDocument));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        pool.destroy();
+        Files.deleteIfExists(pdfFile);
+    }
+
+    @Benchmark
+    public PDFDocument extractFlat() throws IOException {
+        return converter.convertPdfToDocumentModel(pdfFile, flatOptions);
+    }
+
+    @Benchmark
+    public PDFDocument extractLayout() throws IOException {
+        return converter.convertPdfToDocumentModel(pdfFile, layoutOptions);
+    }
+
+    @Benchmark
+    public void writeFlat() throws IOException {
+        write(flatDocument, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void writeLayout() throws IOException {
+        write(layoutDocument, OutputStream.nullOutputStream());
+    }
+
+    /** What a client does with the flat form: sort the glyphs of every page and cut them into lines. */
+    @Benchmark
+    public int rebuildLinesFromFlat() {
+        int lines = 0;
+        for (PDFPage page : flatDocument.getPages()) {
+            List<StyledText> glyphs = new ArrayList<>(page.getTexts());
+            glyphs.sort(Comparator.comparingDouble(StyledText::getY).thenComparingDouble(StyledText::getX));
+            float baseline = Float.NaN;
+            for (StyledText glyph : glyphs) {
+                if (Float.isNaN(baseline) || Math.abs(glyph.getY() - baseline) > BASELINE_TOLERANCE) {
+                    baseline = glyph.getY();
+                    lines++;
+                }
+            }
+        }
+        return lines;
+    }
+
+    private long serializedSize(PDFDocument document) throws IOException {
+        CountingOutputStream counter = new CountingOutputStream(OutputStream.nullOutputStream());
+        write(document, counter);
+        return counter.getCount();
+    }
+
+    private void write(PDFDocument document, OutputStream outputStream) throws IOException {
+        try (JsonGenerator generator = jsonFactory.createGenerator(outputStream)) {
+            document.writeTo(generator);
+        }
+    }
+}
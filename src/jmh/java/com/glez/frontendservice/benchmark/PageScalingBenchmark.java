@@ -0,0 +1,68 @@
+package com.glez.frontendservice.benchmark;
+
+import com.glez.frontendservice.config.PdfProperties;
+import com.glez.frontendservice.pdf.converter.ExtractionOptions;
+import com.glez.frontendservice.pdf.converter.PDFToJsonConverter;
+import com.glez.frontendservice.pdf.converter.PageExtractionPool;
+import com.glez.frontendservice.pdf.model.PDFDocument;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sequential extraction of text documents of growing length. Besides the usual score, the
+ * {@code pages} counter reports extracted pages per second, which should stay flat as the page
+ * count grows; a falling rate means per-page cost depends on document size.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PageScalingBenchmark {
+
+    @Param({"10", "100", "500"})
+    public int pages;
+
+    private Path pdfFile;
+    private PageExtractionPool pool;
+    private PDFToJsonConverter converter;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class PageCounter {
+        public long pages;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            pages = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        pdfFile = BenchmarkSupport.tempPdf("bench-pages-" + pages);
+        BenchmarkDocuments.writeTextPages(pdfFile, pages);
+
+        PdfProperties properties = BenchmarkSupport.properties(false);
+        pool = new PageExtractionPool(properties);
+        converter = BenchmarkSupport.converter(properties, pool);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        pool.destroy();
+        Files.deleteIfExists(pdfFile);
+    }
+
+    @Benchmark
+    public PDFDocument extract(PageCounter counter) throws IOException {
+        PDFDocument document = converter.convertPdfToDocumentModel(pdfFile, ExtractionOptions.defaults());
+        counter.pages += document.getPages().size();
+        return document;
+    }
+}
@@ -0,0 +1,78 @@
+package com.glez.frontendservice.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.glez.frontendservice.config.PdfProperties;
+import com.glez.frontendservice.pdf.converter.ExtractionOptions;
+import com.glez.frontendservice.pdf.converter.PageExtractionPool;
+import com.glez.frontendservice.pdf.model.PDFDocument;
+import com.glez.frontendservice.pdf.model.PDFPage;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of a single page, so that the gc profiler's {@code gc.alloc.rate.norm} reads as
+ * bytes allocated per page.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PageSerializationBenchmark {
+
+    @Param({"TEXT_HEAVY", "MANY_FONTS"})
+    public BenchmarkDocuments.Corpus corpus;
+
+    @Param({"glyph", "run"})
+    public String textGranularity;
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private PDFPage page;
+    private String json;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Path pdfFile = BenchmarkSupport.tempPdf("bench-" + corpus);
+        PdfProperties properties = BenchmarkSupport.properties(false);
+        PageExtractionPool pool = new PageExtractionPool(properties);
+        try {
+            BenchmarkDocuments.write(corpus, pdfFile);
+            PDFDocument document = BenchmarkSupport.converter(properties, pool).convertPdfToDocumentModel(pdfFile,
+                    ExtractionOptions.fromParameters(textGranularity, false, "inline"));
+            page = document.getPages().get(document.getPages().size() / 2);
+        } finally {
+            pool.destroy();
+            Files.deleteIfExists(pdfFile);
+        }
+
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = jsonFactory.createGenerator(writer)) {
+            page.writeTo(generator);
+        }
+        json = writer.toString();
+    }
+
+    @Benchmark
+    public void writePage() throws IOException {
+        try (JsonGenerator generator = jsonFactory.createGenerator(OutputStream.nullOutputStream())) {
+            page.writeTo(generator);
+        }
+    }
+
+    @Benchmark
+    public PDFPage readPage() throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            parser.nextToken();
+            return PDFPage.readFrom(parser);
+        }
+    }
+}
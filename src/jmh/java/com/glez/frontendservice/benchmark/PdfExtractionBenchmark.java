@@ -0,0 +1,62 @@
+package com.glez.frontendservice.benchmark;
+
+import com.glez.frontendservice.config.PdfProperties;
+import com.glez.frontendservice.pdf.converter.ExtractionOptions;
+import com.glez.frontendservice.pdf.converter.PDFToJsonConverter;
+import com.glez.frontendservice.pdf.converter.PageExtractionPool;
+import com.glez.frontendservice.pdf.model.PDFDocument;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PDFToJsonConverter#convertPdfToDocumentModel} over the generated corpora. Sequential
+ * extraction is measured by default; run with {@code -p parallel=true} to include page workers.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PdfExtractionBenchmark {
+
+    @Param({"TEXT_HEAVY", "IMAGE_HEAVY", "MANY_PAGES", "MANY_FONTS"})
+    public BenchmarkDocuments.Corpus corpus;
+
+    @Param({"glyph", "run"})
+    public String textGranularity;
+
+    @Param({"false"})
+    public boolean parallel;
+
+    private Path pdfFile;
+    private PageExtractionPool pool;
+    private PDFToJsonConverter converter;
+    private ExtractionOptions options;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        pdfFile = BenchmarkSupport.tempPdf("bench-" + corpus);
+        BenchmarkDocuments.write(corpus, pdfFile);
+
+        PdfProperties properties = BenchmarkSupport.properties(parallel);
+        pool = new PageExtractionPool(properties);
+        converter = BenchmarkSupport.converter(properties, pool);
+        options = ExtractionOptions.fromParameters(textGranularity, false, "inline");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        pool.destroy();
+        Files.deleteIfExists(pdfFile);
+    }
+
+    @Benchmark
+    public PDFDocument extract() throws IOException {
+        return converter.convertPdfToDocumentModel(pdfFile, options);
+    }
+}
@@ -0,0 +1,61 @@
+package com.glez.frontendservice.benchmark;
+
+import com.glez.frontendservice.config.PdfProperties;
+import com.glez.frontendservice.metrics.PdfMetrics;
+import com.glez.frontendservice.pdf.converter.ExtractionOptions;
+import com.glez.frontendservice.pdf.converter.JsonToPDFConverter;
+import com.glez.frontendservice.pdf.converter.PageExtractionPool;
+import com.glez.frontendservice.pdf.font.FontRegistry;
+import com.glez.frontendservice.pdf.image.ImageStore;
+import com.glez.frontendservice.pdf.model.PDFDocument;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link JsonToPDFConverter#convertJsonToPdf} for the models extracted from the generated corpora.
+ * The PDF is written to a null stream so that only generation and serialization are measured.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PdfGenerationBenchmark {
+
+    @Param({"TEXT_HEAVY", "IMAGE_HEAVY", "MANY_PAGES", "MANY_FONTS"})
+    public BenchmarkDocuments.Corpus corpus;
+
+    @Param({"glyph", "run"})
+    public String textGranularity;
+
+    private PDFDocument document;
+    private JsonToPDFConverter converter;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Path pdfFile = BenchmarkSupport.tempPdf("bench-" + corpus);
+        PdfProperties properties = BenchmarkSupport.properties(false);
+        PageExtractionPool pool = new PageExtractionPool(properties);
+        try {
+            BenchmarkDocuments.write(corpus, pdfFile);
+            document = BenchmarkSupport.converter(properties, pool).convertPdfToDocumentModel(pdfFile,
+                    ExtractionOptions.fromParameters(textGranularity, true, "inline"));
+        } finally {
+            pool.destroy();
+            Files.deleteIfExists(pdfFile);
+        }
+        converter = new JsonToPDFConverter(new ImageStore(properties), new FontRegistry(properties), properties,
+                PdfMetrics.noop());
+    }
+
+    @Benchmark
+    public void generate() throws IOException {
+        converter.convertJsonToPdf(document, OutputStream.nullOutputStream());
+    }
+}
@@ -0,0 +1,54 @@
+package com.glez.frontendservice.benchmark;
+
+import com.glez.frontendservice.pdf.util.StyleUtils;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The bold and italic checks, which run for every extracted glyph.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StyleUtilsBenchmark {
+
+    private PDFont[] fonts;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fonts = BenchmarkDocuments.textFonts().stream()
+                .map(PDType1Font::new)
+                .toArray(PDFont[]::new);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(12)
+    public void isBold(Blackhole blackhole) {
+        for (PDFont font : fonts) {
+            blackhole.consume(StyleUtils.isBold(font));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(12)
+    public void styleOf(Blackhole blackhole) {
+        for (PDFont font : fonts) {
+            blackhole.consume(StyleUtils.styleOf(font));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(12)
+    public void isItalic(Blackhole blackhole) {
+        for (PDFont font : fonts) {
+            blackhole.consume(StyleUtils.isItalic(font));
+        }
+    }
+}
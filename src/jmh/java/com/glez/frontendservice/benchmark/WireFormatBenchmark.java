@@ -0,0 +1,77 @@
+package com.glez.frontendservice.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.glez.frontendservice.config.PdfProperties;
+import com.glez.frontendservice.pdf.converter.ExtractionOptions;
+import com.glez.frontendservice.pdf.converter.PageExtractionPool;
+import com.glez.frontendservice.pdf.model.PDFDocument;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes and reads a document in each wire format the API negotiates, with the mappers configured
+ * like {@code WireFormats}. The encoded size of each corpus and format is printed at setup, since
+ * size rather than speed is what the binary formats are for.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WireFormatBenchmark {
+
+    @Param({"TEXT_HEAVY", "IMAGE_HEAVY", "MANY_FONTS"})
+    public BenchmarkDocuments.Corpus corpus;
+
+    @Param({"glyph", "run"})
+    public String textGranularity;
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    private ObjectMapper mapper;
+    private PDFDocument document;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        mapper = switch (format) {
+            case "cbor" -> new ObjectMapper(new CBORFactory());
+            case "smile" -> new ObjectMapper(SmileFactory.builder()
+                    .disable(SmileGenerator.Feature.ENCODE_BINARY_AS_7BIT).build());
+            default -> new ObjectMapper();
+        };
+        Path pdfFile = BenchmarkSupport.tempPdf("bench-" + corpus);
+        PdfProperties properties = BenchmarkSupport.properties(false);
+        PageExtractionPool pool = new PageExtractionPool(properties);
+        try {
+            BenchmarkDocuments.write(corpus, pdfFile);
+            ExtractionOptions options = ExtractionOptions.fromParameters(textGranularity, false, "inline", null, null);
+            document = BenchmarkSupport.converter(properties, pool).convertPdfToDocumentModel(pdfFile, options);
+        } finally {
+            pool.destroy();
+            Files.deleteIfExists(pdfFile);
+        }
+        encoded = mapper.writeValueAsBytes(document);
+        System.out.printf("%n# payload %s %s %s: %d bytes%n", corpus, textGranularity, format, encoded.length);
+    }
+
+    @Benchmark
+    public void write() throws IOException {
+        mapper.writeValue(OutputStream.nullOutputStream(), document);
+    }
+
+    @Benchmark
+    public PDFDocument read() throws IOException {
+        return mapper.readValue(encoded, PDFDocument.class);
+    }
+}
@@ -0,0 +1,156 @@
+package com.glez.frontendservice.admission;
+
+import com.glez.frontendservice.config.PdfProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limits concurrent conversions by their estimated memory cost and by CPU slots. A conversion holds
+ * the upload, the PDFBox document and the document model at the same time, so its cost is
+ * estimated as the request size times an expansion factor. Requests wait in arrival order for up to
+ * {@code maxWait}; a request that costs more than the whole budget is charged the whole budget, so
+ * it runs alone instead of never.
+ */
+@Component
+public class AdmissionController implements MeterBinder {
+
+    /** Memory is reserved in units of this many bytes, to keep the permit count within an int. */
+    private static final long BYTES_PER_PERMIT = 1024;
+
+    private final boolean enabled;
+    private final long memoryBudgetBytes;
+    private final double expansionFactor;
+    private final long unknownSizeBytes;
+    private final int cpuSlots;
+    private final int maxWaiting;
+    private final Duration maxWait;
+    private final Duration retryAfter;
+
+    private final Semaphore memoryPermits;
+    private final Semaphore cpuPermits;
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    private final Counter rejections;
+    private final Timer waitTimer;
+
+    public AdmissionController(PdfProperties pdfProperties, MeterRegistry registry) {
+        PdfProperties.Admission properties = pdfProperties.getAdmission();
+        this.enabled = properties.isEnabled();
+        this.memoryBudgetBytes = properties.getMemoryBudgetBytes() > 0
+                ? properties.getMemoryBudgetBytes()
+                : Runtime.getRuntime().maxMemory() / 2;
+        this.expansionFactor = properties.getExpansionFactor();
+        this.unknownSizeBytes = properties.getUnknownSizeBytes();
+        this.cpuSlots = properties.getCpuSlots() > 0
+                ? properties.getCpuSlots()
+                : Runtime.getRuntime().availableProcessors();
+        this.maxWaiting = properties.getMaxWaiting();
+        this.maxWait = properties.getMaxWait();
+        this.retryAfter = properties.getRetryAfter();
+
+        this.memoryPermits = new Semaphore(toPermits(memoryBudgetBytes), true);
+        this.cpuPermits = new Semaphore(cpuSlots, true);
+
+        this.rejections = Counter.builder("pdf.admission.rejected")
+                .description("Conversions turned away after waiting for memory or a CPU slot").register(registry);
+        this.waitTimer = Timer.builder("pdf.admission.wait")
+                .description("Time admitted conversions waited for memory and a CPU slot").register(registry);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("pdf.admission.memory.budget", this, admission -> admission.memoryBudgetBytes)
+                .baseUnit("bytes").register(registry);
+        Gauge.builder("pdf.admission.memory.reserved", this,
+                        admission -> (double) (toPermits(admission.memoryBudgetBytes) - admission.memoryPermits.availablePermits()) * BYTES_PER_PERMIT)
+                .baseUnit("bytes").register(registry);
+        Gauge.builder("pdf.admission.cpu.slots", this, admission -> admission.cpuSlots).register(registry);
+        Gauge.builder("pdf.admission.cpu.in.use", this,
+                admission -> admission.cpuSlots - admission.cpuPermits.availablePermits()).register(registry);
+        Gauge.builder("pdf.admission.waiting", waiting, AtomicInteger::get).register(registry);
+    }
+
+    /**
+     * Reserves memory for a request of the given size, or of an assumed size when it is unknown,
+     * plus one CPU slot. Returns {@code null} when that was not possible within the maximum wait.
+     */
+    public Permit tryAdmit(long requestBytes) throws InterruptedException {
+        if (!enabled) {
+            return new Permit(0, false);
+        }
+        if (waiting.incrementAndGet() > maxWaiting) {
+            waiting.decrementAndGet();
+            rejections.increment();
+            return null;
+        }
+
+        int memory = memoryCost(requestBytes);
+        long start = System.nanoTime();
+        long deadline = start + maxWait.toNanos();
+        try {
+            if (!memoryPermits.tryAcquire(memory, maxWait.toNanos(), TimeUnit.NANOSECONDS)) {
+                rejections.increment();
+                return null;
+            }
+            boolean slot = false;
+            try {
+                slot = cpuPermits.tryAcquire(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } finally {
+                if (!slot) {
+                    memoryPermits.release(memory);
+                }
+            }
+            if (!slot) {
+                rejections.increment();
+                return null;
+            }
+            waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return new Permit(memory, true);
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    private int memoryCost(long requestBytes) {
+        long bytes = requestBytes >= 0 ? requestBytes : unknownSizeBytes;
+        long cost = (long) Math.min((double) memoryBudgetBytes, bytes * expansionFactor);
+        return Math.max(1, toPermits(cost));
+    }
+
+    private static int toPermits(long bytes) {
+        return (int) Math.min(Integer.MAX_VALUE, (bytes + BYTES_PER_PERMIT - 1) / BYTES_PER_PERMIT);
+    }
+
+    /** Releases what was reserved; closing it more than once has no further effect. */
+    public final class Permit implements AutoCloseable {
+        private final int memory;
+        private final AtomicBoolean held;
+
+        private Permit(int memory, boolean held) {
+            this.memory = memory;
+            this.held = new AtomicBoolean(held);
+        }
+
+        @Override
+        public void close() {
+            if (held.compareAndSet(true, false)) {
+                cpuPermits.release();
+                memoryPermits.release(memory);
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.glez.frontendservice.admission;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.cors.CorsUtils;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.io.IOException;
+import java.util.function.ToLongFunction;
+
+/**
+ * Admits conversion requests through the {@link AdmissionController}, answering 503 with a
+ * Retry-After header when there is no room for them. The permit is held until the response is
+ * complete, which for streamed extraction is after the last page has been written.
+ * <p>
+ * Interceptors run after the DispatcherServlet has parsed multipart bodies, so an upload is
+ * received in full before it is admitted and only its conversion is budgeted. The upload itself is
+ * bounded up front by {@code spring.servlet.multipart.max-request-size}, and its parts are spooled
+ * to disk rather than held in memory.
+ */
+public class AdmissionInterceptor implements HandlerInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionInterceptor.class);
+    private static final String PERMIT_ATTRIBUTE = AdmissionInterceptor.class.getName() + ".permit";
+
+    private final AdmissionController admissionController;
+    private final ToLongFunction<HttpServletRequest> requestSize;
+
+    public AdmissionInterceptor(AdmissionController admissionController) {
+        this(admissionController, HttpServletRequest::getContentLengthLong);
+    }
+
+    /**
+     * @param requestSize the size of the document a request converts, or -1 when it is not known
+     */
+    public AdmissionInterceptor(AdmissionController admissionController, ToLongFunction<HttpServletRequest> requestSize) {
+        this.admissionController = admissionController;
+        this.requestSize = requestSize;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        if (CorsUtils.isPreFlightRequest(request)) {
+            return true;
+        }
+
+        long size = requestSize.applyAsLong(request);
+        AdmissionController.Permit permit;
+        try {
+            permit = admissionController.tryAdmit(size);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            permit = null;
+        }
+        if (permit == null) {
+            logger.warn("Rejected {} {}: no capacity for a {} byte request", request.getMethod(),
+                    request.getRequestURI(), size);
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, admissionController.getRetryAfter().toSeconds())));
+            response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+            response.getWriter().write("The server is busy converting other documents, try again later.");
+            return false;
+        }
+        request.setAttribute(PERMIT_ATTRIBUTE, permit);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(PERMIT_ATTRIBUTE) instanceof AdmissionController.Permit permit) {
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+            permit.close();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.glez.frontendservice.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * In-memory LRU cache bounded by the estimated size of its values rather than by entry count.
+ * Values heavier than the whole budget are not cached at all.
+ */
+public class ByteSizeLruCache<K, V> {
+
+    private final long maxBytes;
+    private final ToLongFunction<V> weigher;
+    private final BiConsumer<K, V> evictionListener;
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long currentBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong puts = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public ByteSizeLruCache(long maxBytes, ToLongFunction<V> weigher) {
+        this(maxBytes, weigher, (key, value) -> {
+        });
+    }
+
+    public ByteSizeLruCache(long maxBytes, ToLongFunction<V> weigher, BiConsumer<K, V> evictionListener) {
+        this.maxBytes = maxBytes;
+        this.weigher = weigher;
+        this.evictionListener = evictionListener;
+    }
+
+    public V get(K key) {
+        Entry<V> entry;
+        synchronized (this) {
+            entry = entries.get(key);
+        }
+        (entry != null ? hits : misses).incrementAndGet();
+        return entry != null ? entry.value() : null;
+    }
+
+    /** Like {@link #get}, but neither counts as a hit or miss nor refreshes the entry. */
+    public synchronized boolean containsKey(K key) {
+        return entries.containsKey(key);
+    }
+
+    public void put(K key, V value) {
+        long weight = weigher.applyAsLong(value);
+        if (weight > maxBytes) {
+            return;
+        }
+
+        puts.incrementAndGet();
+        Map<K, V> evicted = new LinkedHashMap<>();
+        synchronized (this) {
+            Entry<V> previous = entries.put(key, new Entry<>(value, weight));
+            if (previous != null) {
+                currentBytes -= previous.weight();
+            }
+            currentBytes += weight;
+
+            Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+            while (currentBytes > maxBytes && eldest.hasNext()) {
+                Map.Entry<K, Entry<V>> candidate = eldest.next();
+                if (candidate.getKey().equals(key)) {
+                    continue;
+                }
+                currentBytes -= candidate.getValue().weight();
+                evicted.put(candidate.getKey(), candidate.getValue().value());
+                eldest.remove();
+            }
+        }
+
+        evictions.addAndGet(evicted.size());
+        evicted.forEach(evictionListener);
+    }
+
+    public V remove(K key) {
+        synchronized (this) {
+            Entry<V> removed = entries.remove(key);
+            if (removed == null) {
+                return null;
+            }
+            currentBytes -= removed.weight();
+            return removed.value();
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getCurrentBytes() {
+        return currentBytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public long getPuts() {
+        return puts.get();
+    }
+
+    private record Entry<V>(V value, long weight) {
+    }
+}
@@ -0,0 +1,65 @@
+package com.glez.frontendservice.cache;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+
+/**
+ * Exposes a {@link ByteSizeLruCache} with the standard cache meters ({@code cache.gets{result=hit|miss}},
+ * {@code cache.puts}, {@code cache.evictions}, {@code cache.size}) plus the bytes it holds and may hold.
+ */
+public class ByteSizeLruCacheMetrics extends CacheMeterBinder<ByteSizeLruCache<?, ?>> {
+
+    public ByteSizeLruCacheMetrics(ByteSizeLruCache<?, ?> cache, String cacheName) {
+        super(cache, cacheName, Tags.empty());
+    }
+
+    public static void monitor(MeterRegistry registry, ByteSizeLruCache<?, ?> cache, String cacheName) {
+        new ByteSizeLruCacheMetrics(cache, cacheName).bindTo(registry);
+    }
+
+    @Override
+    protected Long size() {
+        ByteSizeLruCache<?, ?> cache = getCache();
+        return cache != null ? (long) cache.size() : null;
+    }
+
+    @Override
+    protected long hitCount() {
+        ByteSizeLruCache<?, ?> cache = getCache();
+        return cache != null ? cache.getHits() : 0;
+    }
+
+    @Override
+    protected Long missCount() {
+        ByteSizeLruCache<?, ?> cache = getCache();
+        return cache != null ? cache.getMisses() : null;
+    }
+
+    @Override
+    protected Long evictionCount() {
+        ByteSizeLruCache<?, ?> cache = getCache();
+        return cache != null ? cache.getEvictions() : null;
+    }
+
+    @Override
+    protected long putCount() {
+        ByteSizeLruCache<?, ?> cache = getCache();
+        return cache != null ? cache.getPuts() : 0;
+    }
+
+    @Override
+    protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+        ByteSizeLruCache<?, ?> cache = getCache();
+        if (cache == null) {
+            return;
+        }
+        Gauge.builder("cache.bytes", cache, ByteSizeLruCache::getCurrentBytes)
+                .tags(getTagsWithCacheName()).baseUnit("bytes")
+                .description("Estimated bytes held by the cache").register(registry);
+        Gauge.builder("cache.max.bytes", cache, ByteSizeLruCache::getMaxBytes)
+                .tags(getTagsWithCacheName()).baseUnit("bytes")
+                .description("Bytes the cache may hold before evicting").register(registry);
+    }
+}
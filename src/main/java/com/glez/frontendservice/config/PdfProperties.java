@@ -0,0 +1,157 @@
+package com.glez.frontendservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "pdf")
+public class PdfProperties {
+
+    private final Extraction extraction = new Extraction();
+    private final Cache cache = new Cache();
+    private final Images images = new Images();
+    private final Jobs jobs = new Jobs();
+    private final Memory memory = new Memory();
+    private final Fonts fonts = new Fonts();
+    private final Render render = new Render();
+    private final Admission admission = new Admission();
+    private final Search search = new Search();
+    private final Storage storage = new Storage();
+
+    @Data
+    public static class Extraction {
+        private final Parallel parallel = new Parallel();
+    }
+
+    @Data
+    public static class Parallel {
+        private boolean enabled = true;
+        /** Upper bound of workers a single document may use. */
+        private int maxWorkersPerRequest = 4;
+        /** Upper bound of workers across all requests; requests that find none free run sequentially. */
+        private int maxGlobalWorkers = Runtime.getRuntime().availableProcessors();
+        /** Documents shorter than this many pages per extra worker are not worth splitting. */
+        private int minPagesPerWorker = 8;
+        /** Pages a worker extracts before handing them over, which bounds how far workers run ahead. */
+        private int pagesPerBatch = 4;
+    }
+
+    @Data
+    public static class Cache {
+        private boolean enabled = true;
+        /** Estimated heap the in-memory tier may hold before least recently used documents are evicted. */
+        private long maxMemoryBytes = 256L * 1024 * 1024;
+        private final Disk disk = new Disk();
+        private final Pages pages = new Pages();
+    }
+
+    @Data
+    public static class Pages {
+        /** Reuse pages whose content fingerprint was extracted before, e.g. in an earlier revision of the document. */
+        private boolean enabled = true;
+        private long maxMemoryBytes = 128L * 1024 * 1024;
+    }
+
+    @Data
+    public static class Images {
+        /** Send JPEG image streams as they are instead of decoding and re-encoding them. */
+        private boolean passThrough = true;
+        private final ImageStore store = new ImageStore();
+    }
+
+    @Data
+    public static class ImageStore {
+        /** Encoded bytes kept for images sent by reference. */
+        private long maxBytes = 256L * 1024 * 1024;
+        /** Documents whose image references are remembered. */
+        private int maxDocuments = 10_000;
+    }
+
+    @Data
+    public static class Jobs {
+        private int workers = 2;
+        /** Jobs that may wait for a worker; further submissions are rejected with 429. */
+        private int queueCapacity = 16;
+        /** How long finished jobs and their results stay available. */
+        private Duration resultTtl = Duration.ofMinutes(15);
+        /** Estimated heap the results of completed jobs may hold before the least recently fetched are dropped. */
+        private long maxResultBytes = 128L * 1024 * 1024;
+        private Duration cleanupInterval = Duration.ofMinutes(1);
+    }
+
+    @Data
+    public static class Memory {
+        /** Heap a loaded document may use for its stream cache before spilling to scratch files. */
+        private long maxMainMemoryBytes = 16L * 1024 * 1024;
+        /** Directory for PDFBox scratch files; the JVM temp directory when unset. */
+        private String tempDirectory;
+    }
+
+    @Data
+    public static class Fonts {
+        /** TrueType/OpenType files used for generation when a text's font name matches them. */
+        private List<String> files = new ArrayList<>();
+        /** Font name of one of the files above, used for text the matched font cannot encode. */
+        private String fallback;
+    }
+
+    @Data
+    public static class Render {
+        private int threads = 2;
+        /** Pages that may wait for a render thread; further requests are rejected with 429. */
+        private int queueCapacity = 16;
+        private float maxDpi = 300f;
+        /** Encoded bytes of rendered pages kept for repeat requests. */
+        private long cacheMaxBytes = 64L * 1024 * 1024;
+    }
+
+    @Data
+    public static class Search {
+        /** Index the text of full extractions so that it can be searched by document id. */
+        private boolean enabled = true;
+        private long maxMemoryBytes = 128L * 1024 * 1024;
+        private int maxHits = 1000;
+    }
+
+    @Data
+    public static class Storage {
+        private String directory = "upload-dir/store";
+        /** Stored files not accessed for this long are deleted; 0 keeps them until the quota needs room. */
+        private Duration ttl = Duration.ofDays(7);
+        /** Total size of stored files; the least recently used are deleted beyond it. 0 means no quota. */
+        private long maxBytes = 10L * 1024 * 1024 * 1024;
+        private Duration sweepInterval = Duration.ofMinutes(1);
+    }
+
+    @Data
+    public static class Admission {
+        private boolean enabled = true;
+        /** Memory conversions may reserve in total; 0 uses half of the maximum heap. */
+        private long memoryBudgetBytes = 0;
+        /** Estimated memory per byte of request: the upload, the parsed document and its model. */
+        private double expansionFactor = 8;
+        /** Assumed request size when the client sends no Content-Length. */
+        private long unknownSizeBytes = 8L * 1024 * 1024;
+        /** Conversions running at once; 0 uses the number of processors. */
+        private int cpuSlots = 0;
+        /** Requests that may wait for capacity; further ones are rejected right away. */
+        private int maxWaiting = 64;
+        private Duration maxWait = Duration.ofSeconds(10);
+        private Duration retryAfter = Duration.ofSeconds(5);
+    }
+
+    @Data
+    public static class Disk {
+        private boolean enabled = false;
+        private String directory = "upload-dir/extraction-cache";
+        /** Entries not read or written for this long are deleted; 0 keeps them until the size limit needs room. */
+        private Duration ttl = Duration.ofDays(7);
+        /** Total size of the tier; the least recently used entries are deleted beyond it. 0 means no limit. */
+        private long maxBytes = 1024L * 1024 * 1024;
+        private Duration sweepInterval = Duration.ofMinutes(1);
+    }
+}
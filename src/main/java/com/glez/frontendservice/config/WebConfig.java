@@ -0,0 +1,88 @@
+package com.glez.frontendservice.config;
+
+import com.glez.frontendservice.admission.AdmissionController;
+import com.glez.frontendservice.admission.AdmissionInterceptor;
+import com.glez.frontendservice.services.FileService;
+import com.glez.frontendservice.services.StoredFile;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lets {@code Accept: application/cbor} and {@code Accept: application/x-jackson-smile} select a
+ * binary encoding of the same response bodies, and puts admission control in front of the
+ * conversion endpoints.
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final WireFormats wireFormats;
+    private final AdmissionController admissionController;
+    private final FileService fileService;
+
+    public WebConfig(WireFormats wireFormats, AdmissionController admissionController, FileService fileService) {
+        this.wireFormats = wireFormats;
+        this.admissionController = admissionController;
+        this.fileService = fileService;
+    }
+
+    /**
+     * Jobs are not admitted here; they are bounded by their own worker pool and queue.
+     */
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new AdmissionInterceptor(admissionController))
+                .addPathPatterns("/api/pdf/extract-content", "/api/pdf/extract-content/stream",
+                        "/api/pdf/generate-pdf", "/api/pdf/render");
+        registry.addInterceptor(new AdmissionInterceptor(admissionController, this::storedFileSize))
+                .addPathPatterns("/api/pdf/files/*/extract-content");
+    }
+
+    /**
+     * Extracting a stored file has an empty body, so it is admitted by the size of the file it names.
+     */
+    private long storedFileSize(HttpServletRequest request) {
+        if (!(request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE) instanceof Map<?, ?> variables)
+                || !(variables.get("fileId") instanceof String fileId)) {
+            return -1;
+        }
+        return fileService.findStoredFile(fileId).map(StoredFile::size).orElse(-1L);
+    }
+
+    /**
+     * Replaces the CBOR and Smile converters Spring registers on its own, which are not configured
+     * like the JSON mapper. They keep their place after the JSON converter, so clients that accept
+     * anything still get JSON.
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        replaceOrAdd(converters, MappingJackson2CborHttpMessageConverter.class,
+                new MappingJackson2CborHttpMessageConverter(wireFormats.getCborMapper()));
+        replaceOrAdd(converters, MappingJackson2SmileHttpMessageConverter.class,
+                new MappingJackson2SmileHttpMessageConverter(wireFormats.getSmileMapper()));
+    }
+
+    private static void replaceOrAdd(List<HttpMessageConverter<?>> converters,
+                                     Class<?> converterType, HttpMessageConverter<?> converter) {
+        int index = -1;
+        for (int i = 0; i < converters.size(); i++) {
+            if (converterType.isInstance(converters.get(i))) {
+                index = i;
+                break;
+            }
+        }
+        if (index >= 0) {
+            converters.set(index, converter);
+        } else {
+            converters.add(converter);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.glez.frontendservice.config;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Object mappers for the wire formats the PDF API speaks. CBOR and Smile carry the same model as
+ * JSON but write numbers in binary and, for Smile, share repeated key names, which is most of the
+ * size of a glyph-level document. Inline image data, Base64 text in JSON, is written as raw bytes;
+ * Smile would otherwise spread binary over 7-bit bytes. Both are configured like the application's
+ * JSON mapper.
+ * <p>
+ * These are deliberately not {@code ObjectMapper} beans, which would replace the JSON mapper.
+ */
+@Component
+public class WireFormats {
+
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+    public static final MediaType APPLICATION_SMILE = MediaType.parseMediaType(APPLICATION_SMILE_VALUE);
+
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper cborMapper;
+    private final ObjectMapper smileMapper;
+
+    public WireFormats(ObjectMapper jsonMapper, Jackson2ObjectMapperBuilder mapperBuilder) {
+        this.jsonMapper = jsonMapper;
+        this.cborMapper = mapperBuilder.factory(new CBORFactory()).build();
+        this.smileMapper = mapperBuilder.factory(SmileFactory.builder()
+                .disable(SmileGenerator.Feature.ENCODE_BINARY_AS_7BIT)
+                .build()).build();
+    }
+
+    public ObjectMapper getCborMapper() {
+        return cborMapper;
+    }
+
+    public ObjectMapper getSmileMapper() {
+        return smileMapper;
+    }
+
+    /** Mapper for a request or response content type; anything that is not CBOR or Smile is JSON. */
+    public ObjectMapper mapperFor(String contentType) {
+        if (contentType == null) {
+            return jsonMapper;
+        }
+        MediaType mediaType = MediaType.parseMediaType(contentType);
+        if (MediaType.APPLICATION_CBOR.isCompatibleWith(mediaType)) {
+            return cborMapper;
+        }
+        if (APPLICATION_SMILE.isCompatibleWith(mediaType)) {
+            return smileMapper;
+        }
+        return jsonMapper;
+    }
+
+    public JsonParser createParser(String contentType, InputStream inputStream) throws IOException {
+        return mapperFor(contentType).createParser(inputStream);
+    }
+}
@@ -0,0 +1,77 @@
+package com.glez.frontendservice.controlers;
+
+import com.glez.frontendservice.pdf.converter.ExtractionOptions;
+import com.glez.frontendservice.services.JobQueueFullException;
+import com.glez.frontendservice.services.PdfJob;
+import com.glez.frontendservice.services.PdfJobService;
+import com.glez.frontendservice.services.PdfProcessingService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/pdf/jobs")
+public class PdfJobController {
+
+    private static final Logger logger = LoggerFactory.getLogger(PdfJobController.class);
+
+    private final PdfJobService pdfJobService;
+    private final PdfProcessingService pdfProcessingService;
+
+    public PdfJobController(PdfJobService pdfJobService, PdfProcessingService pdfProcessingService) {
+        this.pdfJobService = pdfJobService;
+        this.pdfProcessingService = pdfProcessingService;
+    }
+
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @CrossOrigin(origins = "*")
+    public ResponseEntity<?> submitJob(@RequestParam("file") MultipartFile pdfFile,
+                                       @RequestParam(value = "textGranularity", defaultValue = "glyph") String textGranularity,
+                                       @RequestParam(value = "glyphOffsets", defaultValue = "false") boolean glyphOffsets,
+                                       @RequestParam(value = "imageTransport", defaultValue = "inline") String imageTransport,
+                                       @RequestParam(value = "pages", required = false) String pages,
+                                       @RequestParam(value = "include", required = false) String include) {
+        if (pdfFile.isEmpty()) {
+            logger.warn("Empty PDF file upload attempt.");
+            return ResponseEntity.badRequest().body("PDF file cannot be empty.");
+        }
+
+        ExtractionOptions options;
+        try {
+            options = ExtractionOptions.fromParameters(textGranularity, glyphOffsets, imageTransport, pages, include);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+
+        try {
+            // The upload has to be staged before returning; the multipart temp file goes away with the request.
+            PdfJob job = pdfJobService.submit(pdfProcessingService.stageUpload(pdfFile), options);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/pdf/jobs/" + job.getId()))
+                    .body(Map.of("id", job.getId(), "status", job.getStatus()));
+        } catch (JobQueueFullException e) {
+            logger.warn("Rejected PDF job: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(e.getMessage());
+        } catch (IOException e) {
+            logger.error("Error reading PDF upload for job: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error reading PDF file. Details: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/{id}")
+    @CrossOrigin(origins = "*")
+    public ResponseEntity<PdfJob> getJob(@PathVariable String id) {
+        return pdfJobService.getJob(id)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
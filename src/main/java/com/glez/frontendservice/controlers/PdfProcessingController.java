@@ -1,9 +1,24 @@
 package com.glez.frontendservice.controlers;
 
-import com.glez.frontendservice.pdf.model.PDFDocument;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.glez.frontendservice.config.WireFormats;
+import com.glez.frontendservice.metrics.PdfMetrics;
+import com.glez.frontendservice.pdf.converter.ExtractionOptions;
+import com.glez.frontendservice.pdf.converter.PdfContentSink;
+import com.glez.frontendservice.pdf.model.PDFMetadata;
+import com.glez.frontendservice.pdf.model.PDFPage;
+import com.glez.frontendservice.services.ExtractionResult;
 import com.glez.frontendservice.services.PdfProcessingService;
+import com.glez.frontendservice.services.PdfRenderService;
+import com.glez.frontendservice.services.RenderQueueFullException;
+import com.glez.frontendservice.services.RenderResult;
+import com.glez.frontendservice.services.StoredFile;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -11,36 +26,69 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/pdf")
 public class PdfProcessingController {
 
     private static final Logger logger = LoggerFactory.getLogger(PdfProcessingController.class);
+    private static final String NDJSON_VALUE = "application/x-ndjson";
+    private static final String CACHE_STATUS_HEADER = "X-Cache";
+    private static final String DOCUMENT_ID_HEADER = "X-Document-Id";
+
     private final PdfProcessingService pdfProcessingService;
+    private final ObjectMapper objectMapper;
+    private final WireFormats wireFormats;
+    private final PdfRenderService pdfRenderService;
+    private final PdfMetrics metrics;
 
-    public PdfProcessingController(PdfProcessingService pdfProcessingService) {
+    public PdfProcessingController(PdfProcessingService pdfProcessingService, ObjectMapper objectMapper,
+                                   WireFormats wireFormats, PdfRenderService pdfRenderService, PdfMetrics metrics) {
         this.pdfProcessingService = pdfProcessingService;
+        this.objectMapper = objectMapper;
+        this.wireFormats = wireFormats;
+        this.pdfRenderService = pdfRenderService;
+        this.metrics = metrics;
     }
 
     @PostMapping(value = "/extract-content", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @CrossOrigin(origins = "*")
-    public ResponseEntity<?> extractContentFromPdf(@RequestParam("file") MultipartFile pdfFile) {
+    public ResponseEntity<?> extractContentFromPdf(@RequestParam("file") MultipartFile pdfFile,
+                                                   @RequestParam(value = "textGranularity", defaultValue = "glyph") String textGranularity,
+                                                   @RequestParam(value = "glyphOffsets", defaultValue = "false") boolean glyphOffsets,
+                                                   @RequestParam(value = "imageTransport", defaultValue = "inline") String imageTransport,
+                                                   @RequestParam(value = "pages", required = false) String pages,
+                                                   @RequestParam(value = "include", required = false) String include) {
         if (pdfFile.isEmpty()) {
             logger.warn("Empty PDF file upload attempt.");
             return ResponseEntity.badRequest().body("PDF file cannot be empty.");
         }
 
+        ExtractionOptions options;
+        try {
+            options = ExtractionOptions.fromParameters(textGranularity, glyphOffsets, imageTransport, pages, include);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+
         String contentType = pdfFile.getContentType();
         if (contentType == null || !contentType.equals("application/pdf")) {
             logger.warn("Received file with unexpected content type: {}. Attempting to process.", contentType);
         }
 
         try {
-            PDFDocument pdfDocument = pdfProcessingService.extractContentFromPdf(pdfFile);
-            return ResponseEntity.ok(pdfDocument);
+            ExtractionResult result = pdfProcessingService.extractContentFromPdf(pdfFile, options);
+            return ResponseEntity.ok()
+                    .header(CACHE_STATUS_HEADER, result.cacheHit() ? "HIT" : "MISS")
+                    .body(result.document());
         } catch (IOException e) {
             logger.error("Error processing PDF file: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -52,15 +100,256 @@ public class PdfProcessingController {
         }
     }
 
-    @PostMapping(value = "/generate-pdf", consumes = MediaType.APPLICATION_JSON_VALUE)
-    public void generatePdfFromJson(@RequestBody PDFDocument pdfDocument, HttpServletResponse response) {
+    /**
+     * Keeps an upload in the file store so that later conversions can reference it by id instead
+     * of uploading it again. Storing the same content twice returns the same id.
+     */
+    @PostMapping(value = "/files", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @CrossOrigin(origins = "*")
+    public ResponseEntity<?> storeFile(@RequestParam("file") MultipartFile file) {
+        if (file.isEmpty()) {
+            logger.warn("Empty file upload attempt.");
+            return ResponseEntity.badRequest().body("File cannot be empty.");
+        }
+        try {
+            StoredFile storedFile = pdfProcessingService.storeFile(file);
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("id", storedFile.id());
+            body.put("size", storedFile.size());
+            body.put("deduplicated", storedFile.deduplicated());
+            return ResponseEntity.created(URI.create("/api/pdf/files/" + storedFile.id())).body(body);
+        } catch (IOException e) {
+            logger.error("Error storing file: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error storing file. Details: " + e.getMessage());
+        } catch (Exception e) {
+            logger.error("Unexpected error while storing file: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("An unexpected error occurred while storing the file.");
+        }
+    }
+
+    @PostMapping("/files/{fileId}/extract-content")
+    @CrossOrigin(origins = "*")
+    public ResponseEntity<?> extractStoredContent(@PathVariable String fileId,
+                                                  @RequestParam(value = "textGranularity", defaultValue = "glyph") String textGranularity,
+                                                  @RequestParam(value = "glyphOffsets", defaultValue = "false") boolean glyphOffsets,
+                                                  @RequestParam(value = "imageTransport", defaultValue = "inline") String imageTransport,
+                                                  @RequestParam(value = "pages", required = false) String pages,
+                                                  @RequestParam(value = "include", required = false) String include) {
+        ExtractionOptions options;
+        try {
+            options = ExtractionOptions.fromParameters(textGranularity, glyphOffsets, imageTransport, pages, include);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+
+        try {
+            return pdfProcessingService.extractStoredContent(fileId, options)
+                    .<ResponseEntity<?>>map(result -> ResponseEntity.ok()
+                            .header(CACHE_STATUS_HEADER, result.cacheHit() ? "HIT" : "MISS")
+                            .body(result.document()))
+                    .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body("No stored file " + fileId + "."));
+        } catch (IOException e) {
+            logger.error("Error processing stored PDF file {}: {}", fileId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error processing PDF file. Details: " + e.getMessage());
+        } catch (Exception e) {
+            logger.error("Unexpected error during content extraction of stored file {}: {}", fileId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("An unexpected error occurred while processing the PDF.");
+        }
+    }
+
+    @PostMapping(value = "/extract-content/stream", consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = NDJSON_VALUE)
+    @CrossOrigin(origins = "*")
+    public void streamContentFromPdf(@RequestParam("file") MultipartFile pdfFile,
+                                     @RequestParam(value = "textGranularity", defaultValue = "glyph") String textGranularity,
+                                     @RequestParam(value = "glyphOffsets", defaultValue = "false") boolean glyphOffsets,
+                                     @RequestParam(value = "imageTransport", defaultValue = "inline") String imageTransport,
+                                     @RequestParam(value = "pages", required = false) String pages,
+                                     @RequestParam(value = "include", required = false) String include,
+                                     HttpServletResponse response) throws IOException {
+        if (pdfFile.isEmpty()) {
+            logger.warn("Empty PDF file upload attempt.");
+            response.sendError(HttpStatus.BAD_REQUEST.value(), "PDF file cannot be empty.");
+            return;
+        }
+
+        ExtractionOptions options;
+        try {
+            options = ExtractionOptions.fromParameters(textGranularity, glyphOffsets, imageTransport, pages, include);
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), e.getMessage());
+            return;
+        }
+
+        response.setContentType(NDJSON_VALUE);
         try {
+            pdfProcessingService.streamContentFromPdf(pdfFile, options, new NdjsonContentSink(response.getOutputStream()));
+        } catch (IOException e) {
+            logger.error("Error streaming PDF content: {}", e.getMessage(), e);
+            if (!response.isCommitted()) {
+                response.reset();
+                response.sendError(HttpStatus.INTERNAL_SERVER_ERROR.value(), "Error processing PDF file. Details: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Reads the document straight from the request body, page by page, instead of binding it first.
+     * The PDF is only written once every page has been read, so a malformed body still gets a 400.
+     * The body may be JSON, CBOR or Smile, as given by its Content-Type.
+     */
+    @PostMapping(value = "/generate-pdf", consumes = {MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_CBOR_VALUE, WireFormats.APPLICATION_SMILE_VALUE})
+    public void generatePdfFromJson(HttpServletRequest request, HttpServletResponse response) {
+        try (JsonParser documentParser = wireFormats.createParser(request.getContentType(), request.getInputStream())) {
             response.setContentType("application/pdf");
             response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=generated.pdf");
-            pdfProcessingService.convertJsonToPdf(pdfDocument, response.getOutputStream());
+            pdfProcessingService.convertJsonToPdf(documentParser, response.getOutputStream());
+        } catch (JsonProcessingException e) {
+            logger.warn("Invalid PDF document JSON: {}", e.getOriginalMessage());
+            if (!response.isCommitted()) {
+                response.reset();
+                response.setStatus(HttpStatus.BAD_REQUEST.value());
+            }
         } catch (IOException e) {
             logger.error("Error generating PDF from JSON: {}", e.getMessage(), e);
+            if (!response.isCommitted()) {
+                response.reset();
+            }
             response.setStatus(HttpStatus.INTERNAL_SERVER_ERROR.value());
         }
     }
-}
\ No newline at end of file
+
+    @GetMapping("/images/{docId}/{imageId}")
+    @CrossOrigin(origins = "*")
+    public ResponseEntity<byte[]> getImage(@PathVariable String docId, @PathVariable String imageId) {
+        return pdfProcessingService.getImage(docId, imageId)
+                .map(image -> ResponseEntity.ok()
+                        .contentType(MediaType.parseMediaType(image.mediaType()))
+                        // Image ids are content hashes, so a given URL never changes content.
+                        .cacheControl(CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable())
+                        .body(image.data()))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Finds words or phrases in a document extracted before, returning highlight rectangles in the
+     * coordinates of the extracted texts.
+     */
+    @GetMapping("/{docId}/search")
+    @CrossOrigin(origins = "*")
+    public ResponseEntity<?> search(@PathVariable String docId, @RequestParam("q") String query,
+                                    @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        if (query.isBlank()) {
+            return ResponseEntity.badRequest().body("Query cannot be empty.");
+        }
+        return pdfProcessingService.search(docId, query, limit)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body("Document " + docId + " is not indexed; extract it first."));
+    }
+
+    @DeleteMapping("/{docId}/search")
+    @CrossOrigin(origins = "*")
+    public ResponseEntity<Void> evictSearchIndex(@PathVariable String docId) {
+        return pdfProcessingService.evictSearchIndex(docId)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Renders one page as an image. The response carries the document id, which together with the
+     * page, DPI and format addresses the rendered page under {@code /render/{docId}/{page}}.
+     */
+    @PostMapping(value = "/render", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @CrossOrigin(origins = "*")
+    public ResponseEntity<?> renderPage(@RequestParam("file") MultipartFile pdfFile,
+                                        @RequestParam(value = "page", defaultValue = "1") int page,
+                                        @RequestParam(value = "dpi", defaultValue = "72") float dpi,
+                                        @RequestParam(value = "format", defaultValue = "png") String format) {
+        if (pdfFile.isEmpty()) {
+            logger.warn("Empty PDF file upload attempt.");
+            return ResponseEntity.badRequest().body("PDF file cannot be empty.");
+        }
+
+        try {
+            RenderResult result = pdfRenderService.render(pdfFile, page, dpi, format);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(result.image().mediaType()))
+                    .header(CACHE_STATUS_HEADER, result.cacheHit() ? "HIT" : "MISS")
+                    .header(DOCUMENT_ID_HEADER, result.documentId())
+                    .body(result.image().data());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (RenderQueueFullException e) {
+            logger.warn("Rejected page render: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(e.getMessage());
+        } catch (IOException e) {
+            logger.error("Error rendering PDF page: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error rendering PDF page. Details: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/render/{docId}/{page}")
+    @CrossOrigin(origins = "*")
+    public ResponseEntity<?> getRenderedPage(@PathVariable String docId, @PathVariable int page,
+                                             @RequestParam(value = "dpi", defaultValue = "72") float dpi,
+                                             @RequestParam(value = "format", defaultValue = "png") String format) {
+        try {
+            return pdfRenderService.getRendered(docId, page, dpi, format)
+                    .<ResponseEntity<?>>map(image -> ResponseEntity.ok()
+                            .contentType(MediaType.parseMediaType(image.mediaType()))
+                            // Document ids are content hashes, so a given URL never changes content.
+                            .cacheControl(CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable())
+                            .body(image.data()))
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Writes one JSON object per line and flushes after each, so the client sees every page as soon
+     * as it has been extracted and the page can be collected right after.
+     */
+    private class NdjsonContentSink implements PdfContentSink {
+        private final OutputStream outputStream;
+        private String documentId;
+
+        NdjsonContentSink(OutputStream outputStream) {
+            this.outputStream = outputStream;
+        }
+
+        @Override
+        public void documentId(String documentId) {
+            this.documentId = documentId;
+        }
+
+        @Override
+        public void metadata(PDFMetadata metadata) throws IOException {
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("type", "metadata");
+            line.put("documentId", documentId);
+            line.put("metadata", metadata);
+            writeLine(line);
+        }
+
+        @Override
+        public void page(PDFPage page) throws IOException {
+            writeLine(Map.of("type", "page", "page", page));
+        }
+
+        private void writeLine(Object value) throws IOException {
+            Timer.Sample sample = metrics.start();
+            byte[] line = objectMapper.writeValueAsBytes(value);
+            metrics.contentSerialized(sample, line.length + 1L);
+            outputStream.write(line);
+            outputStream.write('\n');
+            outputStream.flush();
+        }
+    }
+}
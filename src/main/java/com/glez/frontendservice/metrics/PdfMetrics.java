@@ -0,0 +1,143 @@
+package com.glez.frontendservice.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Meters for the PDF pipeline. Whole conversions are observations, so they get a timer and, with a
+ * tracing bridge on the classpath, a span; the stages inside them are plain timers. Histogram
+ * buckets are switched on for everything under {@code pdf.} in {@code application.yml}.
+ */
+@Component
+public class PdfMetrics {
+
+    private final MeterRegistry registry;
+    private final ObservationRegistry observationRegistry;
+
+    private final AtomicInteger extractionsInFlight;
+    private final AtomicInteger generationsInFlight;
+
+    private final Timer uploadTimer;
+    private final Timer parseTimer;
+    private final Timer pageTimer;
+    private final Timer imageEncodeTimer;
+    private final Timer serializationTimer;
+    private final Timer writeTimer;
+
+    private final DistributionSummary documentPages;
+    private final DistributionSummary documentGlyphs;
+    private final DistributionSummary documentImages;
+
+    private final Counter bytesIn;
+    private final Counter bytesOut;
+    private final Counter pagesReused;
+
+    public PdfMetrics(MeterRegistry registry, ObservationRegistry observationRegistry) {
+        this.registry = registry;
+        this.observationRegistry = observationRegistry;
+
+        this.extractionsInFlight = registry.gauge("pdf.conversions.in.flight", Tags.of("operation", "extraction"), new AtomicInteger());
+        this.generationsInFlight = registry.gauge("pdf.conversions.in.flight", Tags.of("operation", "generation"), new AtomicInteger());
+
+        this.uploadTimer = stage("upload", "Copying and hashing an upload to the staging directory");
+        this.parseTimer = stage("parse", "Loading a PDF with PDFBox");
+        this.pageTimer = stage("page", "Extracting the text and images of one page");
+        this.imageEncodeTimer = stage("image.encode", "Encoding one extracted image");
+        this.serializationTimer = stage("serialization", "Serializing extracted content for the response");
+        this.writeTimer = stage("write", "Saving a generated PDF to the response");
+
+        this.documentPages = documentSummary("pages");
+        this.documentGlyphs = documentSummary("glyphs");
+        this.documentImages = documentSummary("images");
+
+        this.bytesIn = Counter.builder("pdf.bytes.in").baseUnit("bytes")
+                .description("Bytes of uploaded documents").register(registry);
+        this.bytesOut = Counter.builder("pdf.bytes.out").baseUnit("bytes")
+                .description("Bytes of generated PDFs and streamed content").register(registry);
+        this.pagesReused = Counter.builder("pdf.pages.reused").baseUnit("pages")
+                .description("Pages taken from the page cache instead of being extracted").register(registry);
+    }
+
+    /** Meters that record into a private registry, for use outside of Spring. */
+    public static PdfMetrics noop() {
+        return new PdfMetrics(new SimpleMeterRegistry(), ObservationRegistry.NOOP);
+    }
+
+    public <E extends Throwable> void observeExtraction(Observation.CheckedRunnable<E> extraction) throws E {
+        observe("pdf.extraction", extractionsInFlight, extraction);
+    }
+
+    public <E extends Throwable> void observeGeneration(Observation.CheckedRunnable<E> generation) throws E {
+        observe("pdf.generation", generationsInFlight, generation);
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(registry);
+    }
+
+    public void uploadStaged(Timer.Sample sample, long bytes) {
+        sample.stop(uploadTimer);
+        bytesIn.increment(bytes);
+    }
+
+    public void documentParsed(Timer.Sample sample) {
+        sample.stop(parseTimer);
+    }
+
+    public void pageExtracted(long nanos) {
+        pageTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void imageEncoded(Timer.Sample sample) {
+        sample.stop(imageEncodeTimer);
+    }
+
+    public void contentSerialized(Timer.Sample sample, long bytes) {
+        sample.stop(serializationTimer);
+        bytesOut.increment(bytes);
+    }
+
+    public void documentWritten(Timer.Sample sample, long bytes) {
+        sample.stop(writeTimer);
+        bytesOut.increment(bytes);
+    }
+
+    public void pagesReused(int pages) {
+        pagesReused.increment(pages);
+    }
+
+    public void documentExtracted(int pages, long glyphs, int images) {
+        documentPages.record(pages);
+        documentGlyphs.record(glyphs);
+        documentImages.record(images);
+    }
+
+    private <E extends Throwable> void observe(String name, AtomicInteger inFlight,
+                                               Observation.CheckedRunnable<E> conversion) throws E {
+        inFlight.incrementAndGet();
+        try {
+            Observation.createNotStarted(name, observationRegistry).observeChecked(conversion);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private Timer stage(String stage, String description) {
+        return Timer.builder("pdf.stage").tag("stage", stage).description(description).register(registry);
+    }
+
+    private DistributionSummary documentSummary(String unit) {
+        return DistributionSummary.builder("pdf.document." + unit).baseUnit(unit)
+                .description("Extracted " + unit + " per document").register(registry);
+    }
+}
@@ -0,0 +1,50 @@
+package com.glez.frontendservice.pdf.converter;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/** Parts of a document an extraction can be limited to with {@code include=}. */
+public enum ContentPart {
+    TEXT,
+    IMAGES,
+    METADATA,
+    /** Text colours; without it texts carry no colour and colour resolution is skipped. */
+    COLORS,
+    /** Words, lines and paragraphs per page; not extracted unless asked for. */
+    LAYOUT;
+
+    public static final Set<ContentPart> ALL = Collections.unmodifiableSet(EnumSet.allOf(ContentPart.class));
+    public static final Set<ContentPart> DEFAULT = Collections.unmodifiableSet(EnumSet.of(TEXT, IMAGES, METADATA, COLORS));
+
+    /**
+     * Parses a comma-separated list such as {@code text,images}, where {@code default} stands for
+     * the default parts and {@code all} for every part; a missing or blank value means the default.
+     */
+    public static Set<ContentPart> fromParameter(String value) {
+        if (value == null || value.isBlank()) {
+            return DEFAULT;
+        }
+        EnumSet<ContentPart> parts = EnumSet.noneOf(ContentPart.class);
+        for (String part : value.split(",")) {
+            if (part.isBlank()) {
+                continue;
+            }
+            if (part.trim().equalsIgnoreCase("default")) {
+                parts.addAll(DEFAULT);
+                continue;
+            }
+            if (part.trim().equalsIgnoreCase("all")) {
+                parts.addAll(ALL);
+                continue;
+            }
+            try {
+                parts.add(valueOf(part.trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported content part: " + part.trim(), e);
+            }
+        }
+        return Collections.unmodifiableSet(parts);
+    }
+}
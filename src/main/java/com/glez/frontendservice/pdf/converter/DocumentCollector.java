@@ -0,0 +1,53 @@
+package com.glez.frontendservice.pdf.converter;
+
+import com.glez.frontendservice.pdf.model.PDFDocument;
+import com.glez.frontendservice.pdf.model.PDFMetadata;
+import com.glez.frontendservice.pdf.model.PDFPage;
+
+import java.io.IOException;
+
+/**
+ * Assembles the streamed content back into a {@link PDFDocument}, optionally forwarding every event
+ * to a listener, e.g. to report progress.
+ */
+public class DocumentCollector implements PdfContentSink {
+
+    private final PDFDocument document = new PDFDocument();
+    private final PdfContentSink listener;
+
+    public DocumentCollector() {
+        this(null);
+    }
+
+    public DocumentCollector(PdfContentSink listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public void documentId(String documentId) throws IOException {
+        document.setId(documentId);
+        if (listener != null) {
+            listener.documentId(documentId);
+        }
+    }
+
+    @Override
+    public void metadata(PDFMetadata metadata) throws IOException {
+        document.setMetadata(metadata);
+        if (listener != null) {
+            listener.metadata(metadata);
+        }
+    }
+
+    @Override
+    public void page(PDFPage page) throws IOException {
+        document.getPages().add(page);
+        if (listener != null) {
+            listener.page(page);
+        }
+    }
+
+    public PDFDocument getDocument() {
+        return document;
+    }
+}
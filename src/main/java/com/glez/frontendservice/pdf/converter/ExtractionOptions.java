@@ -0,0 +1,76 @@
+package com.glez.frontendservice.pdf.converter;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.Locale;
+import java.util.Set;
+
+@Value
+@Builder(toBuilder = true)
+public class ExtractionOptions {
+
+    @Builder.Default
+    TextGranularity textGranularity = TextGranularity.GLYPH;
+    /** In {@link TextGranularity#RUN} and {@link TextGranularity#LINE} mode, also record the x-offset of every code point. */
+    boolean glyphOffsets;
+    @Builder.Default
+    ImageTransport imageTransport = ImageTransport.INLINE;
+    /** Content hash of the source document; images sent by reference are registered under it. */
+    String documentId;
+    /** Pages to extract; every page when null. */
+    PageSelection pages;
+    @Builder.Default
+    Set<ContentPart> include = ContentPart.DEFAULT;
+
+    public boolean includes(ContentPart part) {
+        return include.contains(part);
+    }
+
+    public boolean includesPage(int pageNumber) {
+        return pages == null || pages.contains(pageNumber);
+    }
+
+    /**
+     * Identifies the options in cache keys: two extractions of the same bytes are interchangeable
+     * only when this value matches.
+     */
+    public String cacheKey() {
+        return pages != null ? pageCacheKey() + "-p" + pages : pageCacheKey();
+    }
+
+    /** The part of {@link #cacheKey()} that shapes a single page, i.e. without the page selection. */
+    public String pageCacheKey() {
+        StringBuilder key = new StringBuilder()
+                .append(textGranularity.name().toLowerCase(Locale.ROOT)).append(glyphOffsets ? "+offsets" : "")
+                .append('-').append(imageTransport.name().toLowerCase(Locale.ROOT));
+        if (!include.equals(ContentPart.DEFAULT)) {
+            key.append("-i");
+            include.forEach(part -> key.append(part.name().charAt(0)));
+        }
+        return key.toString();
+    }
+
+    /**
+     * Builds options from request parameters, rejecting unknown values with an
+     * {@link IllegalArgumentException}.
+     */
+    public static ExtractionOptions fromParameters(String textGranularity, boolean glyphOffsets, String imageTransport) {
+        return fromParameters(textGranularity, glyphOffsets, imageTransport, null, null);
+    }
+
+    public static ExtractionOptions fromParameters(String textGranularity, boolean glyphOffsets, String imageTransport,
+                                                   String pages, String include) {
+        return ExtractionOptions.builder()
+                .textGranularity(TextGranularity.fromParameter(textGranularity))
+                .glyphOffsets(glyphOffsets)
+                .imageTransport(ImageTransport.fromParameter(imageTransport))
+                .pages(PageSelection.fromParameter(pages))
+                .include(ContentPart.fromParameter(include))
+                .build();
+    }
+
+    public static ExtractionOptions defaults() {
+        return ExtractionOptions.builder().build();
+    }
+}
@@ -0,0 +1,18 @@
+package com.glez.frontendservice.pdf.converter;
+
+import java.util.Locale;
+
+public enum ImageTransport {
+    /** Image bytes are inlined as Base64 in {@code PDFImage.data}. */
+    INLINE,
+    /** Only the image id is sent; the bytes are served by {@code GET /api/pdf/images/{docId}/{imageId}}. */
+    REFERENCE;
+
+    public static ImageTransport fromParameter(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported image transport: " + value, e);
+        }
+    }
+}
@@ -1,35 +1,59 @@
 package com.glez.frontendservice.pdf.converter;
 
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.glez.frontendservice.config.PdfProperties;
+import com.glez.frontendservice.metrics.CountingOutputStream;
+import com.glez.frontendservice.metrics.PdfMetrics;
+import com.glez.frontendservice.pdf.font.DocumentFonts;
+import com.glez.frontendservice.pdf.font.FontRegistry;
+import com.glez.frontendservice.pdf.image.ImageStore;
+import com.glez.frontendservice.pdf.image.StoredImage;
 import com.glez.frontendservice.pdf.model.PDFDocument;
 import com.glez.frontendservice.pdf.model.PDFImage;
+import com.glez.frontendservice.pdf.model.PDFMetadata;
 import com.glez.frontendservice.pdf.model.PDFPage;
 import com.glez.frontendservice.pdf.model.StyledText;
 import com.glez.frontendservice.pdf.util.PDFUtils;
-import lombok.Cleanup;
+import io.micrometer.core.instrument.Timer;
+import org.apache.pdfbox.io.RandomAccessStreamCache.StreamCacheCreateFunction;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
-import org.apache.pdfbox.pdmodel.font.PDType1Font;
-import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.graphics.image.JPEGFactory;
 import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Base64;
-import java.util.Map;
+import java.util.List;
+import java.util.Objects;
 
 @Component
 public class JsonToPDFConverter implements PdfConverter {
 
-    private static final Map<String, PDType1Font> FONT_MAP = Map.of(
-            "TIMES_ROMAN", new PDType1Font(Standard14Fonts.FontName.TIMES_ROMAN),
-            "TIMES_BOLD", new PDType1Font(Standard14Fonts.FontName.TIMES_BOLD),
-            "TIMES_ITALIC", new PDType1Font(Standard14Fonts.FontName.TIMES_ITALIC),
-            "TIMES_BOLD_ITALIC", new PDType1Font(Standard14Fonts.FontName.TIMES_BOLD_ITALIC)
-    );
+    private static final Logger logger = LoggerFactory.getLogger(JsonToPDFConverter.class);
+
+    private final ImageStore imageStore;
+    private final FontRegistry fontRegistry;
+    private final StreamCacheCreateFunction streamCache;
+    private final PdfMetrics metrics;
+
+    public JsonToPDFConverter(ImageStore imageStore, FontRegistry fontRegistry, PdfProperties pdfProperties,
+                              PdfMetrics metrics) {
+        this.imageStore = imageStore;
+        this.fontRegistry = fontRegistry;
+        this.streamCache = PDFUtils.streamCache(pdfProperties.getMemory());
+        this.metrics = metrics;
+    }
 
     @Override
     public PDFDocument convertPdfToDocumentModel(InputStream pdfInputStream) throws IOException {
@@ -38,59 +62,160 @@ public class JsonToPDFConverter implements PdfConverter {
 
     @Override
     public void convertJsonToPdf(PDFDocument pdfDocument, OutputStream outputStream) throws IOException {
-        @Cleanup PDDocument document = new PDDocument();
-        PDFUtils.applyMetadata(document, pdfDocument.getMetadata());
+        metrics.observeGeneration(() -> {
+            try (PDDocument document = new PDDocument(streamCache)) {
+                PDFUtils.applyMetadata(document, pdfDocument.getMetadata());
+                DocumentFonts fonts = fontRegistry.forDocument(document);
+                for (PDFPage pageData : pdfDocument.getPages()) {
+                    addPage(document, fonts, pageData, pdfDocument.getId());
+                }
+                save(document, outputStream);
+            }
+        });
+    }
+
+    /**
+     * Generates the PDF while reading the document JSON, one page at a time, so the request body is
+     * never bound as a whole. Page content goes through the stream cache and spills to scratch files,
+     * which keeps heap use flat as the page count grows.
+     * <p>
+     * Pages that reference stored images need the document id; if {@code pages} comes before
+     * {@code id} those pages are held back until the id is read.
+     */
+    public void convertJsonToPdf(JsonParser parser, OutputStream outputStream) throws IOException {
+        metrics.observeGeneration(() -> generate(parser, outputStream));
+    }
+
+    private void generate(JsonParser parser, OutputStream outputStream) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected a PDF document object.");
+        }
+        try (PDDocument document = new PDDocument(streamCache)) {
+            DocumentFonts fonts = fontRegistry.forDocument(document);
+            String documentId = null;
+            boolean documentIdRead = false;
+            PDFMetadata metadata = null;
+            List<PDFPage> heldBack = new ArrayList<>();
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (value == JsonToken.VALUE_NULL) {
+                    continue;
+                }
+                if ("id".equals(field)) {
+                    documentId = parser.getText();
+                    documentIdRead = true;
+                    addPages(document, fonts, heldBack, documentId);
+                } else if ("metadata".equals(field)) {
+                    metadata = PDFMetadata.readFrom(parser);
+                } else if ("pages".equals(field) && value == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+                            continue;
+                        }
+                        PDFPage pageData = PDFPage.readFrom(parser);
+                        if (!documentIdRead && (!heldBack.isEmpty() || referencesStoredImages(pageData))) {
+                            heldBack.add(pageData);
+                        } else {
+                            addPage(document, fonts, pageData, documentId);
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            addPages(document, fonts, heldBack, documentId);
+
+            if (metadata != null) {
+                PDFUtils.applyMetadata(document, metadata);
+            }
+            save(document, outputStream);
+        }
+    }
+
+    private void save(PDDocument document, OutputStream outputStream) throws IOException {
+        Timer.Sample sample = metrics.start();
+        CountingOutputStream countingStream = new CountingOutputStream(outputStream);
+        document.save(countingStream);
+        metrics.documentWritten(sample, countingStream.getCount());
+    }
+
+    private void addPages(PDDocument document, DocumentFonts fonts, List<PDFPage> pages, String documentId) throws IOException {
+        for (PDFPage pageData : pages) {
+            addPage(document, fonts, pageData, documentId);
+        }
+        pages.clear();
+    }
 
-        for (PDFPage pageData : pdfDocument.getPages()) {
-            PDPage page = new PDPage(new PDRectangle(pageData.getWidth(), pageData.getHeight()));
-            document.addPage(page);
+    private void addPage(PDDocument document, DocumentFonts fonts, PDFPage pageData, String documentId) throws IOException {
+        PDPage page = new PDPage(new PDRectangle(pageData.getWidth(), pageData.getHeight()));
+        document.addPage(page);
 
-            @Cleanup PDPageContentStream contentStream = new PDPageContentStream(document, page);
+        try (PDPageContentStream contentStream = new PDPageContentStream(document, page)) {
+            TextRenderPlanner textPlanner = new TextRenderPlanner(contentStream);
             for (StyledText text : pageData.getTexts()) {
-                addStyledText(contentStream, text);
+                addStyledText(textPlanner, fonts, text);
             }
+            textPlanner.finish();
 
             for (PDFImage image : pageData.getImages()) {
-                addImage(document, contentStream, image);
+                addImage(document, contentStream, image, documentId);
             }
         }
-        document.save(outputStream);
     }
 
-    private void addStyledText(PDPageContentStream contentStream, StyledText text) throws IOException {
-        contentStream.beginText();
-
-        PDType1Font font = resolveFont(text);
-        contentStream.setFont(font, text.getFontSize());
+    private static boolean referencesStoredImages(PDFPage pageData) {
+        return pageData.getImages().stream()
+                .filter(Objects::nonNull)
+                .anyMatch(image -> image.getData() == null && image.getId() != null);
+    }
 
-        if (text.getRed() >= 0 && text.getGreen() >= 0 && text.getBlue() >= 0) {
-            contentStream.setNonStrokingColor(text.getRed(), text.getGreen(), text.getBlue());
+    private void addStyledText(TextRenderPlanner textPlanner, DocumentFonts fonts, StyledText text) throws IOException {
+        PDFont font = fonts.resolve(text.getFontName(), text.isBold(), text.isItalic());
+        String content = text.getText();
+        float[] offsets = text.getGlyphOffsets();
+        if (offsets == null || content == null || offsets.length != content.codePointCount(0, content.length())) {
+            showText(textPlanner, fonts, font, text, content, text.getX());
+            return;
         }
 
-        contentStream.newLineAtOffset(text.getX(), text.getY());
-        contentStream.showText(text.getText());
-        contentStream.endText();
+        int index = 0;
+        for (int offset = 0; offset < content.length(); index++) {
+            int next = offset + Character.charCount(content.codePointAt(offset));
+            showText(textPlanner, fonts, font, text, content.substring(offset, next), text.getX() + offsets[index]);
+            offset = next;
+        }
     }
 
-    private PDType1Font resolveFont(StyledText text) {
-        if (text.isBold() && text.isItalic()) {
-            return FONT_MAP.get("TIMES_BOLD_ITALIC");
-        } else if (text.isBold()) {
-            return FONT_MAP.get("TIMES_BOLD");
-        } else if (text.isItalic()) {
-            return FONT_MAP.get("TIMES_ITALIC");
-        } else {
-            return FONT_MAP.get("TIMES_ROMAN");
+    /**
+     * Shows the text in its resolved font, falling back to the configured fallback font, and as a
+     * last resort to the text with its unencodable characters replaced.
+     */
+    private void showText(TextRenderPlanner textPlanner, DocumentFonts fonts, PDFont font, StyledText style,
+                          String content, float x) throws IOException {
+        try {
+            textPlanner.show(content, x, style.getY(), font, style.getFontSize(),
+                    style.getRed(), style.getGreen(), style.getBlue());
+            return;
+        } catch (IllegalArgumentException e) {
+            logger.debug("Font {} cannot encode '{}': {}", font.getName(), content, e.getMessage());
         }
+        PDFont fallback = fonts.fallback(font);
+        textPlanner.show(DocumentFonts.encodable(fallback, content), x, style.getY(), fallback, style.getFontSize(),
+                style.getRed(), style.getGreen(), style.getBlue());
     }
 
-    private void addImage(PDDocument document, PDPageContentStream contentStream, PDFImage image) throws IOException {
-        byte[] imageData = Base64.getDecoder().decode(image.getData());
-        PDImageXObject pdImage = PDImageXObject.createFromByteArray(
-                document,
-                imageData,
-                image.getName()
-        );
+    private void addImage(PDDocument document, PDPageContentStream contentStream, PDFImage image,
+                          String documentId) throws IOException {
+        byte[] imageData = resolveImageData(image, documentId);
+        if (imageData == null) {
+            logger.warn("Skipping image '{}': no inline data and no stored image for id '{}'.", image.getName(), image.getId());
+            return;
+        }
+        PDImageXObject pdImage = isJpeg(imageData)
+                ? JPEGFactory.createFromByteArray(document, imageData)
+                : PDImageXObject.createFromByteArray(document, imageData, image.getName());
 
         contentStream.drawImage(
                 pdImage,
@@ -100,4 +225,21 @@ public class JsonToPDFConverter implements PdfConverter {
                 image.getHeight()
         );
     }
+
+    /**
+     * JPEGs are embedded as DCTDecode streams without decoding their pixels.
+     */
+    private static boolean isJpeg(byte[] imageData) {
+        return imageData.length > 2 && (imageData[0] & 0xFF) == 0xFF && (imageData[1] & 0xFF) == 0xD8;
+    }
+
+    private byte[] resolveImageData(PDFImage image, String documentId) {
+        if (image.getData() != null) {
+            return Base64.getDecoder().decode(image.getData());
+        }
+        if (documentId == null || image.getId() == null) {
+            return null;
+        }
+        return imageStore.get(documentId, image.getId()).map(StoredImage::data).orElse(null);
+    }
 }
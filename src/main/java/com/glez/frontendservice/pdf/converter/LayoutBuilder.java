@@ -0,0 +1,105 @@
+package com.glez.frontendservice.pdf.converter;
+
+import com.glez.frontendservice.pdf.model.TextBlock;
+import com.glez.frontendservice.pdf.model.TextLine;
+import com.glez.frontendservice.pdf.model.TextWord;
+import org.apache.pdfbox.text.TextPosition;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the word/line/paragraph tree of a page from the stripper's output callbacks. With
+ * {@code setSortByPosition(true)} PDFTextStripper already emits words in reading order, line by line,
+ * with paragraph boundaries, so the tree is built in a single pass over the words and the bounds of
+ * every line and block grow as words are appended; nothing is sorted again.
+ */
+class LayoutBuilder {
+
+    private List<TextBlock> blocks = new ArrayList<>();
+    private TextBlock block;
+    private TextLine line;
+    private float blockTop;
+    private float blockBottom;
+    private float blockRight;
+    private float lineRight;
+
+    void startBlock() {
+        endBlock();
+    }
+
+    void addWord(String text, List<TextPosition> positions) {
+        if (text == null || text.isEmpty() || positions.isEmpty()) {
+            return;
+        }
+        float left = Float.MAX_VALUE;
+        float right = -Float.MAX_VALUE;
+        float baseline = 0f;
+        float height = 0f;
+        for (TextPosition position : positions) {
+            if (position == null) {
+                continue;
+            }
+            left = Math.min(left, position.getX());
+            right = Math.max(right, position.getX() + position.getWidthDirAdj());
+            baseline = Math.max(baseline, position.getY());
+            height = Math.max(height, position.getHeightDir());
+        }
+        if (left > right) {
+            return;
+        }
+
+        if (line == null) {
+            line = new TextLine();
+            line.setX(left);
+            line.setY(baseline);
+            lineRight = right;
+        }
+        line.setX(Math.min(line.getX(), left));
+        line.setY(Math.max(line.getY(), baseline));
+        line.setHeight(Math.max(line.getHeight(), height));
+        lineRight = Math.max(lineRight, right);
+        line.getWords().add(new TextWord(text, left, right - left));
+    }
+
+    void endLine() {
+        if (line == null) {
+            return;
+        }
+        line.setWidth(lineRight - line.getX());
+        float top = line.getY() - line.getHeight();
+        if (block == null) {
+            block = new TextBlock();
+            block.setX(line.getX());
+            blockTop = top;
+            blockBottom = line.getY();
+            blockRight = lineRight;
+        }
+        block.setX(Math.min(block.getX(), line.getX()));
+        blockTop = Math.min(blockTop, top);
+        blockBottom = Math.max(blockBottom, line.getY());
+        blockRight = Math.max(blockRight, lineRight);
+        block.getLines().add(line);
+        line = null;
+    }
+
+    void endBlock() {
+        endLine();
+        if (block == null) {
+            return;
+        }
+        block.setY(blockTop);
+        block.setWidth(blockRight - block.getX());
+        block.setHeight(blockBottom - blockTop);
+        blocks.add(block);
+        block = null;
+    }
+
+    /** The blocks of the page, after which the builder starts over for the next page. */
+    List<TextBlock> finishPage() {
+        endBlock();
+        List<TextBlock> pageBlocks = blocks;
+        blocks = new ArrayList<>();
+        return pageBlocks;
+    }
+}
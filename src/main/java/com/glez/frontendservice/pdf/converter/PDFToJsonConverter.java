@@ -1,47 +1,82 @@
 package com.glez.frontendservice.pdf.converter;
 
+import com.glez.frontendservice.config.PdfProperties;
+import com.glez.frontendservice.metrics.PdfMetrics;
+import com.glez.frontendservice.pdf.image.ImageStore;
 import com.glez.frontendservice.pdf.model.PDFDocument;
 import com.glez.frontendservice.pdf.model.PDFImage;
+import com.glez.frontendservice.pdf.model.PDFMetadata;
 import com.glez.frontendservice.pdf.model.PDFPage;
 import com.glez.frontendservice.pdf.model.StyledText;
+import com.glez.frontendservice.pdf.model.TextBlock;
 import com.glez.frontendservice.pdf.util.PDFUtils;
-import com.glez.frontendservice.pdf.util.StyleUtils;
-import lombok.Cleanup;
+import io.micrometer.core.instrument.Timer;
 import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.RandomAccessStreamCache.StreamCacheCreateFunction;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
-import org.apache.pdfbox.pdmodel.PDResources;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
-import org.apache.pdfbox.pdmodel.font.PDFont;
-import org.apache.pdfbox.pdmodel.graphics.color.PDColor;
-import org.apache.pdfbox.pdmodel.graphics.color.PDColorSpace;
-import org.apache.pdfbox.pdmodel.graphics.color.PDDeviceGray;
-import org.apache.pdfbox.pdmodel.graphics.color.PDDeviceRGB;
-import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
-import org.apache.pdfbox.pdmodel.graphics.state.PDGraphicsState;
-import org.apache.pdfbox.text.PDFTextStripper;
-import org.apache.pdfbox.text.TextPosition;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
 import java.io.*;
-import java.util.Base64;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.HashMap;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntPredicate;
 
 @Component
 public class PDFToJsonConverter implements PdfConverter {
 
     private static final Logger logger = LoggerFactory.getLogger(PDFToJsonConverter.class);
 
+    private final PdfProperties.Parallel parallelProperties;
+    private final PageExtractionPool pageExtractionPool;
+    private final ImageStore imageStore;
+    private final PageCache pageCache;
+    private final boolean imagePassThrough;
+    private final StreamCacheCreateFunction streamCache;
+    private final PdfMetrics metrics;
+
+    public PDFToJsonConverter(PdfProperties pdfProperties, PageExtractionPool pageExtractionPool, ImageStore imageStore,
+                              PageCache pageCache, PdfMetrics metrics) {
+        this.parallelProperties = pdfProperties.getExtraction().getParallel();
+        this.pageExtractionPool = pageExtractionPool;
+        this.imageStore = imageStore;
+        this.pageCache = pageCache;
+        this.imagePassThrough = pdfProperties.getImages().isPassThrough();
+        this.streamCache = PDFUtils.streamCache(pdfProperties.getMemory());
+        this.metrics = metrics;
+    }
+
     @Override
     public PDFDocument convertPdfToDocumentModel(InputStream pdfInputStream) throws IOException {
-        @Cleanup PDDocument document = Loader.loadPDF(pdfInputStream.readAllBytes());
-        return extractPDFContent(document);
+        return convertPdfToDocumentModel(pdfInputStream, ExtractionOptions.defaults());
+    }
+
+    public PDFDocument convertPdfToDocumentModel(InputStream pdfInputStream, ExtractionOptions options) throws IOException {
+        DocumentCollector collector = new DocumentCollector();
+        extractPDFContent(pdfInputStream, options, collector);
+        return collector.getDocument();
+    }
+
+    public PDFDocument convertPdfToDocumentModel(Path pdfFile, ExtractionOptions options) throws IOException {
+        DocumentCollector collector = new DocumentCollector();
+        extractPDFContent(pdfFile, options, collector);
+        return collector.getDocument();
     }
 
     @Override
@@ -49,146 +84,359 @@ public class PDFToJsonConverter implements PdfConverter {
         throw new UnsupportedOperationException("This converter does not support JSON to PDF conversion.");
     }
 
-    private PDFDocument extractPDFContent(PDDocument document) throws IOException {
-        PDFDocument pdfDocument = new PDFDocument();
-        pdfDocument.setMetadata(PDFUtils.extractMetadata(document));
+    /**
+     * Spools the stream to a temporary file first; parallel workers each open their own copy of the
+     * document, which needs something that can be read more than once.
+     */
+    public void extractPDFContent(InputStream pdfInputStream, ExtractionOptions options, PdfContentSink sink) throws IOException {
+        Path spooled = Files.createTempFile("pdf-extract-", ".pdf");
+        try {
+            Files.copy(pdfInputStream, spooled, StandardCopyOption.REPLACE_EXISTING);
+            extractPDFContent(spooled, options, sink);
+        } finally {
+            Files.deleteIfExists(spooled);
+        }
+    }
+
+    public void extractPDFContent(Path pdfFile, ExtractionOptions options, PdfContentSink sink) throws IOException {
+        if (options.getImageTransport() == ImageTransport.REFERENCE && options.getDocumentId() == null) {
+            throw new IllegalArgumentException("Images can only be sent by reference for documents with an id.");
+        }
+        CountingSink counted = new CountingSink(sink);
+        metrics.observeExtraction(() -> extract(pdfFile, options, counted));
+        metrics.documentExtracted(counted.pages, counted.glyphs, counted.images);
+    }
 
-        List<PDFPage> pages = new ArrayList<>();
-        for (int pageNum = 0; pageNum < document.getNumberOfPages(); pageNum++) {
-            PDPage pdPage = document.getPage(pageNum);
-            PDFPage customPage = new PDFPage();
+    private void extract(Path pdfFile, ExtractionOptions options, PdfContentSink sink) throws IOException {
+        if (options.getDocumentId() != null) {
+            sink.documentId(options.getDocumentId());
+        }
+        Map<String, PageImageExtractor.EncodedImage> encodedImages = new ConcurrentHashMap<>();
+
+        int[] pages;
+        int workers = 0;
+        try (PDDocument document = loadDocument(pdfFile)) {
+            // The metadata event is always sent, since it opens the stream; excluded metadata is null.
+            sink.metadata(options.includes(ContentPart.METADATA) ? PDFUtils.extractMetadata(document) : null);
+            pages = selectedPages(options, document.getNumberOfPages());
+
+            workers = pageExtractionPool.tryAcquireWorkers(plannedWorkers(pages.length));
+            if (workers == 0) {
+                extractPages(document, options, newImageExtractor(options, encodedImages), newFingerprinter(),
+                        pages, 0, pages.length, sink::page);
+                return;
+            }
+        } catch (IOException | RuntimeException e) {
+            pageExtractionPool.releaseWorkers(workers);
+            throw e;
+        }
 
-            customPage.setPageNumber(pageNum + 1);
+        extractPagesInParallel(() -> loadDocument(pdfFile), options, encodedImages, pages, workers, sink);
+    }
 
-            PDRectangle mediaBox = pdPage.getMediaBox();
-            customPage.setWidth(mediaBox.getWidth());
-            customPage.setHeight(mediaBox.getHeight());
+    private static int[] selectedPages(ExtractionOptions options, int pageCount) {
+        if (options.getPages() != null) {
+            return options.getPages().pagesIn(pageCount);
+        }
+        int[] pages = new int[pageCount];
+        for (int i = 0; i < pageCount; i++) {
+            pages[i] = i + 1;
+        }
+        return pages;
+    }
 
-            StyleAwareTextStripper stripper = new StyleAwareTextStripper();
-            stripper.setSortByPosition(true);
-            stripper.setStartPage(pageNum + 1);
-            stripper.setEndPage(pageNum + 1);
+    /** No extractor, and so no access to image XObjects at all, when images are not requested. */
+    private PageImageExtractor newImageExtractor(ExtractionOptions options,
+                                                 Map<String, PageImageExtractor.EncodedImage> encodedImages) {
+        return options.includes(ContentPart.IMAGES)
+                ? new PageImageExtractor(options, imageStore, imagePassThrough, encodedImages, metrics)
+                : null;
+    }
 
-            stripper.writeText(document, new StringWriter());
-            customPage.setTexts(stripper.getStyledTexts());
+    private PageFingerprinter newFingerprinter() {
+        return pageCache.isEnabled() ? new PageFingerprinter() : null;
+    }
 
-            customPage.setImages(extractImagesFromPage(pdPage, pageNum));
-            pages.add(customPage);
+    private PDDocument loadDocument(Path pdfFile) throws IOException {
+        Timer.Sample sample = metrics.start();
+        PDDocument document = Loader.loadPDF(pdfFile.toFile(), streamCache);
+        metrics.documentParsed(sample);
+        return document;
+    }
+
+    private int plannedWorkers(int pageCount) {
+        if (!parallelProperties.isEnabled()) {
+            return 0;
         }
+        int workers = Math.min(parallelProperties.getMaxWorkersPerRequest(),
+                pageCount / Math.max(1, parallelProperties.getMinPagesPerWorker()));
+        return workers > 1 ? workers : 0;
+    }
 
-        pdfDocument.setPages(pages);
-        return pdfDocument;
+    /**
+     * Extracts {@code pages[from]} up to, not including, {@code pages[to]}. Without text the
+     * stripper is not run at all. With a fingerprinter, pages found in the page cache are not
+     * extracted again but taken from the cache, and handed on in order with the extracted ones.
+     */
+    private void extractPages(PDDocument document, ExtractionOptions options, PageImageExtractor imageExtractor,
+                              PageFingerprinter fingerprinter, int[] pages, int from, int to,
+                              PageConsumer consumer) throws IOException {
+        if (from >= to) {
+            return;
+        }
+        PageReuse reuse = fingerprinter != null
+                ? findReusablePages(document, options, fingerprinter, pages, from, to)
+                : null;
+        IntPredicate extracted = reuse != null ? reuse::mustExtract : options::includesPage;
+
+        // A page's time runs from the end of the previous one, since the stripper reports pages after processing them.
+        long[] pageStart = {System.nanoTime()};
+        PageConsumer timed = page -> {
+            metrics.pageExtracted(System.nanoTime() - pageStart[0]);
+            if (reuse != null) {
+                reuse.extracted(page, consumer);
+            } else {
+                consumer.accept(page);
+            }
+            pageStart[0] = System.nanoTime();
+        };
+        if (!options.includes(ContentPart.TEXT) && !options.includes(ContentPart.LAYOUT)) {
+            for (int i = from; i < to; i++) {
+                if (extracted.test(pages[i])) {
+                    timed.accept(buildPage(document.getPage(pages[i] - 1), pages[i], new ArrayList<>(), null, imageExtractor));
+                }
+            }
+        } else if (reuse == null || reuse.hasPagesToExtract()) {
+            StyleAwareTextStripper stripper = new StyleAwareTextStripper(options,
+                    (pdPage, pageNumber, texts, blocks) -> timed.accept(buildPage(pdPage, pageNumber, texts, blocks, imageExtractor)));
+            stripper.setPageFilter(extracted);
+            stripper.setStartPage(pages[from]);
+            stripper.setEndPage(pages[to - 1]);
+            stripper.extract(document);
+        }
+        if (reuse != null) {
+            reuse.finish(consumer);
+        }
     }
 
-    private List<PDFImage> extractImagesFromPage(PDPage pdPage, int pageNum) throws IOException {
-        List<PDFImage> images = new ArrayList<>();
-        PDResources resources = pdPage.getResources();
-        int imageCount = 1;
+    private PageReuse findReusablePages(PDDocument document, ExtractionOptions options, PageFingerprinter fingerprinter,
+                                        int[] pages, int from, int to) throws IOException {
+        PageReuse reuse = new PageReuse(options);
+        for (int i = from; i < to; i++) {
+            String fingerprint = fingerprinter.fingerprint(document.getPage(pages[i] - 1));
+            PDFPage cached = pageCache.get(fingerprint, options, pages[i]);
+            if (cached != null && imagesAvailable(cached, options)) {
+                linkImages(cached, options);
+                reuse.reused.add(cached);
+            } else {
+                reuse.fingerprints.put(pages[i], fingerprint);
+            }
+        }
+        metrics.pagesReused(reuse.reused.size());
+        return reuse;
+    }
 
-        for (var name : resources.getXObjectNames()) {
-            if (resources.isImageXObject(name)) {
-                PDImageXObject imageXObject = (PDImageXObject) resources.getXObject(name);
+    /** Images sent by reference must still be in the image store for a cached page to be reused. */
+    private boolean imagesAvailable(PDFPage page, ExtractionOptions options) {
+        if (options.getImageTransport() != ImageTransport.REFERENCE) {
+            return true;
+        }
+        for (PDFImage image : page.getImages()) {
+            if (image.getId() != null && !imageStore.containsImage(image.getId())) {
+                return false;
+            }
+        }
+        return true;
+    }
 
-                PDFImage pdfImage = new PDFImage();
-                pdfImage.setName(String.format("image_%d_%d.%s", pageNum + 1, imageCount, imageXObject.getSuffix()));
-                pdfImage.setWidth(imageXObject.getWidth());
-                pdfImage.setHeight(imageXObject.getHeight());
-                pdfImage.setFormat(imageXObject.getSuffix());
+    /** Links the images of a reused page to the new document id, so they can be fetched under it. */
+    private void linkImages(PDFPage page, ExtractionOptions options) {
+        if (options.getImageTransport() != ImageTransport.REFERENCE) {
+            return;
+        }
+        for (PDFImage image : page.getImages()) {
+            if (image.getId() != null) {
+                imageStore.link(options.getDocumentId(), image.getId());
+            }
+        }
+    }
+
+    /**
+     * Splits the selected pages into batches of consecutive pages that the workers take in order, each
+     * on its own PDDocument instance since PDFBox documents are not thread-safe. Batches are handed
+     * to the sink in page order, and workers may only run a small window of batches ahead of the
+     * sink so that streaming callers still hold a bounded number of pages.
+     */
+    private void extractPagesInParallel(DocumentLoader loader, ExtractionOptions options,
+                                        Map<String, PageImageExtractor.EncodedImage> encodedImages,
+                                        int[] pages, int workers, PdfContentSink sink) throws IOException {
+        int pagesPerBatch = Math.max(1, parallelProperties.getPagesPerBatch());
+        int batchCount = (pages.length + pagesPerBatch - 1) / pagesPerBatch;
+        List<CompletableFuture<List<PDFPage>>> batches = new ArrayList<>(batchCount);
+        for (int i = 0; i < batchCount; i++) {
+            batches.add(new CompletableFuture<>());
+        }
+        AtomicInteger nextBatch = new AtomicInteger();
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Semaphore window = new Semaphore(workers * 2);
+
+        int started = 0;
+        try {
+            for (; started < workers; started++) {
+                pageExtractionPool.startWorker(() ->
+                        runWorker(loader, options, encodedImages, pages, pagesPerBatch, batches, nextBatch, window, cancelled));
+            }
+            for (CompletableFuture<List<PDFPage>> batch : batches) {
+                for (PDFPage page : awaitBatch(batch)) {
+                    sink.page(page);
+                }
+                window.release();
+            }
+        } finally {
+            pageExtractionPool.releaseWorkers(workers - started);
+            cancelled.set(true);
+            window.release(workers);
+        }
+    }
 
-                try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-                    BufferedImage bufferedImage = imageXObject.getImage();
-                    ImageIO.write(bufferedImage, imageXObject.getSuffix(), baos);
-                    pdfImage.setData(Base64.getEncoder().encodeToString(baos.toByteArray()));
-                } catch (IOException e) {
-                    logger.error("Error converting image to Base64", e);
+    private void runWorker(DocumentLoader loader, ExtractionOptions options,
+                           Map<String, PageImageExtractor.EncodedImage> encodedImages, int[] pages, int pagesPerBatch,
+                           List<CompletableFuture<List<PDFPage>>> batches, AtomicInteger nextBatch,
+                           Semaphore window, AtomicBoolean cancelled) {
+        try (PDDocument document = loader.load()) {
+            PageImageExtractor imageExtractor = newImageExtractor(options, encodedImages);
+            PageFingerprinter fingerprinter = newFingerprinter();
+            while (true) {
+                window.acquire();
+                int batch = nextBatch.getAndIncrement();
+                if (cancelled.get() || batch >= batches.size()) {
+                    return;
                 }
 
-                images.add(pdfImage);
-                imageCount++;
+                int from = batch * pagesPerBatch;
+                int to = Math.min(pages.length, from + pagesPerBatch);
+                List<PDFPage> extracted = new ArrayList<>(to - from);
+                try {
+                    extractPages(document, options, imageExtractor, fingerprinter, pages, from, to, extracted::add);
+                    batches.get(batch).complete(extracted);
+                } catch (IOException | RuntimeException e) {
+                    batches.get(batch).completeExceptionally(e);
+                    return;
+                }
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            logger.error("Page extraction worker could not open the document", e);
+            batches.forEach(batch -> batch.completeExceptionally(e));
         }
-        return images;
     }
 
-    private static class StyleAwareTextStripper extends PDFTextStripper {
-        private final List<StyledText> styledTextsInternal = new ArrayList<>();
+    private static List<PDFPage> awaitBatch(CompletableFuture<List<PDFPage>> batch) throws IOException {
+        try {
+            return batch.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for extracted pages.");
+        } catch (ExecutionException e) {
+            throw new IOException("Page extraction failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private PDFPage buildPage(PDPage pdPage, int pageNumber, List<StyledText> texts, List<TextBlock> blocks,
+                              PageImageExtractor imageExtractor) throws IOException {
+        PDFPage customPage = new PDFPage();
+        customPage.setPageNumber(pageNumber);
+
+        PDRectangle mediaBox = pdPage.getMediaBox();
+        customPage.setWidth(mediaBox.getWidth());
+        customPage.setHeight(mediaBox.getHeight());
+
+        customPage.setTexts(texts);
+        customPage.setBlocks(blocks);
+        customPage.setImages(imageExtractor != null ? imageExtractor.extract(pdPage, pageNumber) : new ArrayList<>());
+        return customPage;
+    }
 
-        public StyleAwareTextStripper() throws IOException {
-            super();
+    /**
+     * The cached pages of one range, waiting to be handed on between the pages that are extracted,
+     * and the fingerprints of the pages that have to be extracted.
+     */
+    private class PageReuse {
+        private final ExtractionOptions options;
+        private final Map<Integer, String> fingerprints = new HashMap<>();
+        private final ArrayDeque<PDFPage> reused = new ArrayDeque<>();
+
+        PageReuse(ExtractionOptions options) {
+            this.options = options;
         }
 
-        @Override
-        protected void writeString(String text, List<TextPosition> textPositions) throws IOException {
-            for (TextPosition textPosition : textPositions) {
-                if (textPosition == null) continue;
-
-                PDFont font = textPosition.getFont();
-                String fontName = (font != null && font.getName() != null) ? font.getName() : "Unknown";
-
-                StyledText styledText = new StyledText();
-                styledText.setText(textPosition.getUnicode());
-                styledText.setFontName(fontName);
-                styledText.setFontSize(textPosition.getFontSizeInPt());
-
-                PDGraphicsState gs = getGraphicsState();
-
-                styledText.setBold(font != null && StyleUtils.isBold(font));
-                styledText.setItalic(font != null && StyleUtils.isItalic(font));
-
-                styledText.setX(textPosition.getX());
-                styledText.setY(textPosition.getY());
-                styledText.setWidth(textPosition.getWidthDirAdj());
-                styledText.setHeight(textPosition.getHeightDir());
-
-                PDColor pdColor = gs.getNonStrokingColor();
-
-                if (pdColor != null) {
-                    try {
-                        PDColorSpace cs = pdColor.getColorSpace();
-                        float[] components = pdColor.getComponents();
-
-                        if (cs instanceof PDDeviceRGB) {
-                            if (components != null && components.length >= 3) {
-                                styledText.setRed(components[0]);
-                                styledText.setGreen(components[1]);
-                                styledText.setBlue(components[2]);
-                            } else {
-                                setDefaultColor(styledText);
-                            }
-                        } else if (cs instanceof PDDeviceGray) {
-                            if (components != null && components.length >= 1) {
-                                styledText.setRed(components[0]);
-                                styledText.setGreen(components[0]);
-                                styledText.setBlue(components[0]);
-                            } else {
-                                setDefaultColor(styledText);
-                            }
-                        } else {
-                            int rgb = pdColor.toRGB();
-                            styledText.setRed(((rgb >> 16) & 0xFF) / 255.0f);
-                            styledText.setGreen(((rgb >> 8) & 0xFF) / 255.0f);
-                            styledText.setBlue((rgb & 0xFF) / 255.0f);
-                        }
-                    } catch (IOException e) {
-                        logger.warn("Could not process color for text '{}': {}", textPosition.getUnicode(), e.getMessage());
-                        setDefaultColor(styledText);
-                    }
-                } else {
-                    setDefaultColor(styledText);
-                }
+        boolean mustExtract(int pageNumber) {
+            return fingerprints.containsKey(pageNumber);
+        }
+
+        boolean hasPagesToExtract() {
+            return !fingerprints.isEmpty();
+        }
+
+        void extracted(PDFPage page, PageConsumer consumer) throws IOException {
+            handOnReusedBefore(page.getPageNumber(), consumer);
+            String fingerprint = fingerprints.get(page.getPageNumber());
+            page.setFingerprint(fingerprint);
+            pageCache.put(fingerprint, options, page);
+            consumer.accept(page);
+        }
+
+        void finish(PageConsumer consumer) throws IOException {
+            handOnReusedBefore(Integer.MAX_VALUE, consumer);
+        }
 
-                styledTextsInternal.add(styledText);
+        private void handOnReusedBefore(int pageNumber, PageConsumer consumer) throws IOException {
+            while (!reused.isEmpty() && reused.peek().getPageNumber() < pageNumber) {
+                consumer.accept(reused.poll());
             }
         }
+    }
+
+    /** Counts what is handed to the sink, for the per-document histograms. */
+    private static class CountingSink implements PdfContentSink {
+        private final PdfContentSink delegate;
+        private int pages;
+        private long glyphs;
+        private int images;
 
-        private void setDefaultColor(StyledText styledText) {
-            styledText.setRed(0.0f);
-            styledText.setGreen(0.0f);
-            styledText.setBlue(0.0f);
+        CountingSink(PdfContentSink delegate) {
+            this.delegate = delegate;
         }
 
-        public List<StyledText> getStyledTexts() {
-            return new ArrayList<>(styledTextsInternal);
+        @Override
+        public void documentId(String documentId) throws IOException {
+            delegate.documentId(documentId);
         }
+
+        @Override
+        public void metadata(PDFMetadata metadata) throws IOException {
+            delegate.metadata(metadata);
+        }
+
+        @Override
+        public void page(PDFPage page) throws IOException {
+            pages++;
+            for (StyledText text : page.getTexts()) {
+                glyphs += text.getText() != null ? text.getText().length() : 0;
+            }
+            images += page.getImages().size();
+            delegate.page(page);
+        }
+    }
+
+    @FunctionalInterface
+    private interface PageConsumer {
+        void accept(PDFPage page) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface DocumentLoader {
+        PDDocument load() throws IOException;
     }
 }
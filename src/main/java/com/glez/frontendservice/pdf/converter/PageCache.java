@@ -0,0 +1,99 @@
+package com.glez.frontendservice.pdf.converter;
+
+import com.glez.frontendservice.cache.ByteSizeLruCache;
+import com.glez.frontendservice.cache.ByteSizeLruCacheMetrics;
+import com.glez.frontendservice.config.PdfProperties;
+import com.glez.frontendservice.pdf.model.PDFImage;
+import com.glez.frontendservice.pdf.model.PDFPage;
+import com.glez.frontendservice.pdf.model.StyledText;
+import com.glez.frontendservice.pdf.model.TextBlock;
+import com.glez.frontendservice.pdf.model.TextLine;
+import com.glez.frontendservice.pdf.model.TextWord;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Extracted pages keyed by their content fingerprint and the extraction options. When a document
+ * is uploaded again with a few pages edited, only the edited pages miss and go through the stripper
+ * and image pipeline. Unlike the document cache, hits here do not depend on the rest of the file
+ * being byte-identical.
+ */
+@Component
+public class PageCache implements MeterBinder {
+
+    private final boolean enabled;
+    private final ByteSizeLruCache<String, PDFPage> pages;
+
+    public PageCache(PdfProperties pdfProperties) {
+        PdfProperties.Cache properties = pdfProperties.getCache();
+        this.enabled = properties.isEnabled() && properties.getPages().isEnabled();
+        this.pages = new ByteSizeLruCache<>(properties.getPages().getMaxMemoryBytes(), PageCache::estimateSize);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        ByteSizeLruCacheMetrics.monitor(registry, pages, "pages");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** A copy of the cached page, numbered as the given page and marked as reused. */
+    PDFPage get(String fingerprint, ExtractionOptions options, int pageNumber) {
+        PDFPage cached = pages.get(key(fingerprint, options));
+        if (cached == null) {
+            return null;
+        }
+        PDFPage page = cached.copy();
+        page.setPageNumber(pageNumber);
+        page.setFingerprint(fingerprint);
+        page.setReused(true);
+        return page;
+    }
+
+    void put(String fingerprint, ExtractionOptions options, PDFPage page) {
+        pages.put(key(fingerprint, options), page.copy());
+    }
+
+    public long getHits() {
+        return pages.getHits();
+    }
+
+    public long getMisses() {
+        return pages.getMisses();
+    }
+
+    private static String key(String fingerprint, ExtractionOptions options) {
+        return fingerprint + "-" + options.pageCacheKey();
+    }
+
+    /**
+     * Rough retained size of a page model, good enough to keep caches within their budget.
+     */
+    public static long estimateSize(PDFPage page) {
+        long size = 96;
+        for (StyledText text : page.getTexts()) {
+            size += 96 + 2L * (text.getText() != null ? text.getText().length() : 0);
+            if (text.getGlyphOffsets() != null) {
+                size += 16 + 4L * text.getGlyphOffsets().length;
+            }
+        }
+        for (PDFImage image : page.getImages()) {
+            size += 96 + (image.getData() != null ? image.getData().length() : 0);
+        }
+        if (page.getBlocks() != null) {
+            for (TextBlock block : page.getBlocks()) {
+                size += 64;
+                for (TextLine line : block.getLines()) {
+                    size += 64;
+                    for (TextWord word : line.getWords()) {
+                        size += 64 + 2L * (word.getText() != null ? word.getText().length() : 0);
+                    }
+                }
+            }
+        }
+        return size;
+    }
+}
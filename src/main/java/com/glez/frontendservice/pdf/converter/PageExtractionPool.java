@@ -0,0 +1,56 @@
+package com.glez.frontendservice.pdf.converter;
+
+import com.glez.frontendservice.config.PdfProperties;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Shared workers for parallel page extraction. Workers run on virtual threads, but how many may run
+ * at once across all requests is capped by a global semaphore. Permits are only ever taken with
+ * {@code tryAcquire}, so a request never waits for workers: it gets what is free, possibly none.
+ */
+@Component
+public class PageExtractionPool implements DisposableBean {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore globalWorkers;
+
+    public PageExtractionPool(PdfProperties pdfProperties) {
+        this.globalWorkers = new Semaphore(Math.max(1, pdfProperties.getExtraction().getParallel().getMaxGlobalWorkers()));
+    }
+
+    int tryAcquireWorkers(int wanted) {
+        int granted = 0;
+        while (granted < wanted && globalWorkers.tryAcquire()) {
+            granted++;
+        }
+        return granted;
+    }
+
+    /**
+     * Runs a worker holding one permit previously granted by {@link #tryAcquireWorkers(int)}; the
+     * permit is returned when the worker finishes.
+     */
+    void startWorker(Runnable worker) {
+        executor.execute(() -> {
+            try {
+                worker.run();
+            } finally {
+                globalWorkers.release();
+            }
+        });
+    }
+
+    void releaseWorkers(int count) {
+        globalWorkers.release(count);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
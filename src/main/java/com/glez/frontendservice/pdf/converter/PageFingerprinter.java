@@ -0,0 +1,146 @@
+package com.glez.frontendservice.pdf.converter;
+
+import com.glez.frontendservice.util.Hashing;
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSBoolean;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSFloat;
+import org.apache.pdfbox.cos.COSInteger;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.cos.COSString;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fingerprints what extraction reads from a page or an image: its content streams, its resources (fonts, images,
+ * forms, colour spaces) and its boxes and rotation. Objects are hashed as a Merkle tree over the COS
+ * graph, memoized per object, so resources shared by many pages are hashed once per document.
+ * {@code /Parent} links are not followed, which keeps the page tree itself out of the fingerprint.
+ * <p>
+ * Not thread-safe; every worker fingerprints its own copy of the document.
+ */
+class PageFingerprinter {
+
+    private static final byte[] CYCLE = new byte[32];
+    private static final COSName PARENT = COSName.PARENT;
+    private static final COSName ANNOTATION_PAGE = COSName.P;
+
+    private final Map<COSBase, byte[]> digests = new IdentityHashMap<>();
+
+    String fingerprint(PDPage page) throws IOException {
+        MessageDigest digest = Hashing.sha256();
+        digest.update(digestOf(page.getCOSObject().getDictionaryObject(COSName.CONTENTS)));
+        // A page without /Resources, not even inherited ones, extracts like one with empty resources.
+        PDResources resources = page.getResources();
+        digest.update(digestOf(resources != null ? resources.getCOSObject() : new COSDictionary()));
+        updateBox(digest, page.getMediaBox());
+        updateBox(digest, page.getCropBox());
+        digest.update(ByteBuffer.allocate(4).putInt(page.getRotation()).array());
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Fingerprints an XObject: its dictionary, including colour space and palette, masks, decode
+     * array and filters, together with its raw data.
+     */
+    String fingerprint(COSStream xObject) throws IOException {
+        return HexFormat.of().formatHex(digestOf(xObject));
+    }
+
+    private byte[] digestOf(COSBase base) throws IOException {
+        if (base instanceof COSObject indirect) {
+            base = indirect.getObject();
+        }
+        if (base == null) {
+            return leaf('0', new byte[0]);
+        }
+        boolean composite = base instanceof COSDictionary || base instanceof COSArray;
+        if (!composite) {
+            return leafDigest(base);
+        }
+
+        byte[] memo = digests.get(base);
+        if (memo != null) {
+            return memo;
+        }
+        digests.put(base, CYCLE);
+        byte[] result = base instanceof COSArray array ? arrayDigest(array) : dictionaryDigest((COSDictionary) base);
+        digests.put(base, result);
+        return result;
+    }
+
+    private byte[] dictionaryDigest(COSDictionary dictionary) throws IOException {
+        MessageDigest digest = Hashing.sha256();
+        digest.update((byte) (dictionary instanceof COSStream ? 's' : 'd'));
+        List<COSName> keys = new ArrayList<>(dictionary.keySet());
+        keys.sort(null);
+        for (COSName key : keys) {
+            if (key.equals(PARENT) || key.equals(ANNOTATION_PAGE)) {
+                continue;
+            }
+            digest.update(key.getName().getBytes(StandardCharsets.UTF_8));
+            digest.update(digestOf(dictionary.getItem(key)));
+        }
+        if (dictionary instanceof COSStream stream) {
+            Hashing.update(digest, stream.createRawInputStream());
+        }
+        return digest.digest();
+    }
+
+    private byte[] arrayDigest(COSArray array) throws IOException {
+        MessageDigest digest = Hashing.sha256();
+        digest.update((byte) 'a');
+        for (int i = 0; i < array.size(); i++) {
+            digest.update(digestOf(array.get(i)));
+        }
+        return digest.digest();
+    }
+
+    private static byte[] leafDigest(COSBase base) {
+        if (base instanceof COSName name) {
+            return leaf('n', name.getName().getBytes(StandardCharsets.UTF_8));
+        }
+        if (base instanceof COSString string) {
+            return leaf('t', string.getBytes());
+        }
+        if (base instanceof COSInteger integer) {
+            return leaf('i', ByteBuffer.allocate(8).putLong(integer.longValue()).array());
+        }
+        if (base instanceof COSFloat number) {
+            return leaf('f', ByteBuffer.allocate(4).putFloat(number.floatValue()).array());
+        }
+        if (base instanceof COSBoolean bool) {
+            return leaf('b', new byte[]{(byte) (bool.getValue() ? 1 : 0)});
+        }
+        return leaf('0', new byte[0]);
+    }
+
+    private static byte[] leaf(char type, byte[] value) {
+        MessageDigest digest = Hashing.sha256();
+        digest.update((byte) type);
+        digest.update(value);
+        return digest.digest();
+    }
+
+    private static void updateBox(MessageDigest digest, PDRectangle box) {
+        ByteBuffer values = ByteBuffer.allocate(16);
+        values.putFloat(box.getLowerLeftX()).putFloat(box.getLowerLeftY())
+                .putFloat(box.getUpperRightX()).putFloat(box.getUpperRightY());
+        digest.update(values.array());
+    }
+
+}
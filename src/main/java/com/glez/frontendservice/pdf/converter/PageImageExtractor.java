@@ -0,0 +1,168 @@
+package com.glez.frontendservice.pdf.converter;
+
+import com.glez.frontendservice.metrics.PdfMetrics;
+import com.glez.frontendservice.pdf.image.ImageStore;
+import com.glez.frontendservice.pdf.image.StoredImage;
+import com.glez.frontendservice.pdf.model.PDFImage;
+import io.micrometer.core.instrument.Timer;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.graphics.color.PDColorSpace;
+import org.apache.pdfbox.pdmodel.graphics.color.PDDeviceGray;
+import org.apache.pdfbox.pdmodel.graphics.color.PDDeviceRGB;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Extracts the images of a page, identifying each image XObject by a fingerprint of its dictionary
+ * and raw data so that an image used on many pages is encoded once per document. The map of encoded
+ * images is shared by all workers extracting the same document; the fingerprinter, which memoizes
+ * per COS object, is per worker since every worker has its own COS objects.
+ */
+class PageImageExtractor {
+
+    private static final Logger logger = LoggerFactory.getLogger(PageImageExtractor.class);
+
+    private final ExtractionOptions options;
+    private final ImageStore imageStore;
+    private final boolean passThrough;
+    private final Map<String, EncodedImage> encodedImages;
+    private final PdfMetrics metrics;
+    private final PageFingerprinter fingerprinter = new PageFingerprinter();
+
+    PageImageExtractor(ExtractionOptions options, ImageStore imageStore, boolean passThrough,
+                       Map<String, EncodedImage> encodedImages, PdfMetrics metrics) {
+        this.options = options;
+        this.imageStore = imageStore;
+        this.passThrough = passThrough;
+        this.encodedImages = encodedImages;
+        this.metrics = metrics;
+    }
+
+    List<PDFImage> extract(PDPage pdPage, int pageNumber) throws IOException {
+        List<PDFImage> images = new ArrayList<>();
+        PDResources resources = pdPage.getResources();
+        if (resources == null) {
+            // Blank pages often have no /Resources at all, not even inherited ones.
+            return images;
+        }
+        int imageCount = 1;
+
+        for (var name : resources.getXObjectNames()) {
+            if (resources.isImageXObject(name)) {
+                PDImageXObject imageXObject = (PDImageXObject) resources.getXObject(name);
+                String imageId = fingerprinter.fingerprint(imageXObject.getCOSObject());
+                EncodedImage encoded = encode(imageId, imageXObject);
+
+                PDFImage pdfImage = new PDFImage();
+                pdfImage.setId(imageId);
+                pdfImage.setName(String.format("image_%d_%d.%s", pageNumber, imageCount, imageXObject.getSuffix()));
+                pdfImage.setWidth(imageXObject.getWidth());
+                pdfImage.setHeight(imageXObject.getHeight());
+                pdfImage.setFormat(imageXObject.getSuffix());
+
+                if (encoded != null) {
+                    if (options.getImageTransport() == ImageTransport.INLINE) {
+                        pdfImage.setData(encoded.base64());
+                    } else {
+                        imageStore.link(options.getDocumentId(), imageId);
+                    }
+                }
+
+                images.add(pdfImage);
+                imageCount++;
+            }
+        }
+        return images;
+    }
+
+    /**
+     * Encodes outside the shared map so that workers never wait on each other's encoding. Workers
+     * that meet the same new image at the same time may both encode it; the first result is kept.
+     */
+    private EncodedImage encode(String imageId, PDImageXObject imageXObject) {
+        EncodedImage encoded = encodedImages.get(imageId);
+        if (encoded != null) {
+            return encoded;
+        }
+        try {
+            encoded = encodeOnce(imageId, imageXObject);
+        } catch (IOException e) {
+            logger.error("Error encoding image {}", imageId, e);
+            return null;
+        }
+        EncodedImage previous = encodedImages.putIfAbsent(imageId, encoded);
+        return previous != null ? previous : encoded;
+    }
+
+    private EncodedImage encodeOnce(String imageId, PDImageXObject imageXObject) throws IOException {
+        if (options.getImageTransport() == ImageTransport.REFERENCE && imageStore.containsImage(imageId)) {
+            imageStore.link(options.getDocumentId(), imageId);
+            return new EncodedImage(null);
+        }
+
+        String format = imageXObject.getSuffix();
+        Timer.Sample sample = metrics.start();
+        byte[] data = passThrough && isBrowserReadableJpeg(imageXObject)
+                ? readEncodedJpeg(imageXObject)
+                : decodeAndReencode(imageXObject, format);
+        metrics.imageEncoded(sample);
+
+        if (options.getImageTransport() == ImageTransport.INLINE) {
+            return new EncodedImage(Base64.getEncoder().encodeToString(data));
+        }
+        imageStore.put(options.getDocumentId(), imageId, new StoredImage(format, data));
+        return new EncodedImage(null);
+    }
+
+    private static byte[] decodeAndReencode(PDImageXObject imageXObject, String format) throws IOException {
+        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+            BufferedImage bufferedImage = imageXObject.getImage();
+            ImageIO.write(bufferedImage, format, baos);
+            return baos.toByteArray();
+        }
+    }
+
+    /**
+     * A DCTDecode stream is already a JPEG file. It can be sent as is when nothing the PDF applies on
+     * top of it would be lost: no masks, no decode array, and a colour space browsers render the
+     * same way (CMYK and ICC-based JPEGs fall back to decoding).
+     */
+    private static boolean isBrowserReadableJpeg(PDImageXObject imageXObject) throws IOException {
+        if (!"jpg".equals(imageXObject.getSuffix())) {
+            return false;
+        }
+        COSStream stream = imageXObject.getCOSObject();
+        if (stream.containsKey(COSName.SMASK) || stream.containsKey(COSName.MASK) || stream.containsKey(COSName.DECODE)) {
+            return false;
+        }
+        PDColorSpace colorSpace = imageXObject.getColorSpace();
+        return colorSpace instanceof PDDeviceRGB || colorSpace instanceof PDDeviceGray;
+    }
+
+    private static byte[] readEncodedJpeg(PDImageXObject imageXObject) throws IOException {
+        // Undo any filters applied on top of DCTDecode, but not DCTDecode itself.
+        try (InputStream jpeg = imageXObject.getStream().createInputStream(List.of(COSName.DCT_DECODE.getName()))) {
+            return jpeg.readAllBytes();
+        }
+    }
+
+    /**
+     * Per-document encoding result; {@code base64} is only kept when images are inlined.
+     */
+    record EncodedImage(String base64) {
+    }
+}
@@ -0,0 +1,125 @@
+package com.glez.frontendservice.pdf.converter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * A set of 1-based page numbers given as ranges, e.g. {@code 1-3,10} or {@code 5-} for page 5 to
+ * the end. Ranges are kept sorted and merged, so equal selections have equal string forms.
+ */
+public final class PageSelection {
+
+    private static final int OPEN_END = Integer.MAX_VALUE;
+
+    private final int[] starts;
+    private final int[] ends;
+
+    private PageSelection(int[] starts, int[] ends) {
+        this.starts = starts;
+        this.ends = ends;
+    }
+
+    /**
+     * Parses a page list, rejecting malformed ranges with an {@link IllegalArgumentException}. A
+     * missing or blank value selects every page and is returned as {@code null}.
+     */
+    public static PageSelection fromParameter(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        List<int[]> ranges = new ArrayList<>();
+        for (String part : value.split(",")) {
+            String range = part.trim();
+            if (range.isEmpty()) {
+                continue;
+            }
+            int dash = range.indexOf('-');
+            int start = parsePage(dash < 0 ? range : range.substring(0, dash), value);
+            int end = dash < 0 ? start
+                    : dash == range.length() - 1 ? OPEN_END
+                    : parsePage(range.substring(dash + 1), value);
+            if (end < start) {
+                throw new IllegalArgumentException("Invalid page range: " + range);
+            }
+            ranges.add(new int[]{start, end});
+        }
+        if (ranges.isEmpty()) {
+            return null;
+        }
+
+        ranges.sort((a, b) -> Integer.compare(a[0], b[0]));
+        int[] starts = new int[ranges.size()];
+        int[] ends = new int[ranges.size()];
+        int count = 0;
+        for (int[] range : ranges) {
+            if (count > 0 && range[0] <= ends[count - 1] + 1L) {
+                ends[count - 1] = Math.max(ends[count - 1], range[1]);
+            } else {
+                starts[count] = range[0];
+                ends[count] = range[1];
+                count++;
+            }
+        }
+        return new PageSelection(Arrays.copyOf(starts, count), Arrays.copyOf(ends, count));
+    }
+
+    private static int parsePage(String page, String value) {
+        try {
+            int number = Integer.parseInt(page.trim());
+            if (number < 1) {
+                throw new IllegalArgumentException("Page numbers start at 1: " + value);
+            }
+            return number;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid page list: " + value, e);
+        }
+    }
+
+    public boolean contains(int page) {
+        for (int i = 0; i < starts.length && starts[i] <= page; i++) {
+            if (page <= ends[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** The selected pages that exist in a document of {@code pageCount} pages, in order. */
+    public int[] pagesIn(int pageCount) {
+        int count = 0;
+        for (int i = 0; i < starts.length && starts[i] <= pageCount; i++) {
+            count += Math.min(ends[i], pageCount) - starts[i] + 1;
+        }
+        int[] pages = new int[count];
+        int index = 0;
+        for (int i = 0; i < starts.length && starts[i] <= pageCount; i++) {
+            for (int page = starts[i]; page <= Math.min(ends[i], pageCount); page++) {
+                pages[index++] = page;
+            }
+        }
+        return pages;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof PageSelection other && Arrays.equals(starts, other.starts) && Arrays.equals(ends, other.ends);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(starts) + Arrays.hashCode(ends);
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(",");
+        for (int i = 0; i < starts.length; i++) {
+            joiner.add(starts[i] == ends[i] ? String.valueOf(starts[i])
+                    : ends[i] == OPEN_END ? starts[i] + "-"
+                    : starts[i] + "-" + ends[i]);
+        }
+        return joiner.toString();
+    }
+}
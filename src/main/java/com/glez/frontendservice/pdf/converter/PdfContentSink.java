@@ -0,0 +1,24 @@
+package com.glez.frontendservice.pdf.converter;
+
+import com.glez.frontendservice.pdf.model.PDFMetadata;
+import com.glez.frontendservice.pdf.model.PDFPage;
+
+import java.io.IOException;
+
+/**
+ * Receives extracted content as it is produced: the metadata first, then every page in order.
+ * Implementations must not keep a reference to a page once they are done with it if they want
+ * memory to stay bounded by the largest page.
+ */
+public interface PdfContentSink {
+
+    /**
+     * Called before the metadata when the document has an id, e.g. to resolve image references.
+     */
+    default void documentId(String documentId) throws IOException {
+    }
+
+    void metadata(PDFMetadata metadata) throws IOException;
+
+    void page(PDFPage page) throws IOException;
+}
@@ -0,0 +1,14 @@
+package com.glez.frontendservice.pdf.converter;
+
+import com.glez.frontendservice.pdf.model.PDFDocument;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+public interface PdfConverter {
+
+    PDFDocument convertPdfToDocumentModel(InputStream pdfInputStream) throws IOException;
+
+    void convertJsonToPdf(PDFDocument pdfDocument, OutputStream outputStream) throws IOException;
+}
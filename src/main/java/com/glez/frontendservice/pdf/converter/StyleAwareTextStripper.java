@@ -0,0 +1,257 @@
+package com.glez.frontendservice.pdf.converter;
+
+import com.glez.frontendservice.pdf.model.StyledText;
+import com.glez.frontendservice.pdf.model.TextBlock;
+import com.glez.frontendservice.pdf.util.FontStyle;
+import com.glez.frontendservice.pdf.util.StyleUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.graphics.color.PDColor;
+import org.apache.pdfbox.pdmodel.graphics.color.PDColorSpace;
+import org.apache.pdfbox.pdmodel.graphics.color.PDDeviceGray;
+import org.apache.pdfbox.pdmodel.graphics.color.PDDeviceRGB;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.pdfbox.text.TextPosition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * Collects {@link StyledText} for every page of the configured range in a single pass over the
+ * document. Pages are handed to the {@link PageHandler} from the {@code endPage} hook; pages that
+ * PDFTextStripper skips because they have no content stream are reported with no texts so that the
+ * handler still sees every page in order. When layout is requested, the words the stripper writes
+ * are also grouped into lines and paragraphs.
+ */
+class StyleAwareTextStripper extends PDFTextStripper {
+
+    private static final Logger logger = LoggerFactory.getLogger(StyleAwareTextStripper.class);
+    private static final float[] DEFAULT_COLOR = {0.0f, 0.0f, 0.0f};
+    private static final float[] NO_COLOR = {-1f, -1f, -1f};
+
+    @FunctionalInterface
+    interface PageHandler {
+        /** {@code blocks} is null unless layout was requested. */
+        void pageExtracted(PDPage page, int pageNumber, List<StyledText> texts, List<TextBlock> blocks) throws IOException;
+    }
+
+    private final PageHandler pageHandler;
+    private final ExtractionOptions options;
+    private final boolean texts;
+    private final boolean colors;
+    private final LayoutBuilder layout;
+    private final Map<TextPosition, float[]> glyphColors = new IdentityHashMap<>();
+    private PDColor lastColor;
+    private float[] lastRgb;
+    private final Map<PDFont, FontStyle> fontStyles = new IdentityHashMap<>();
+    private PDFont lastFont;
+    private FontStyle lastFontStyle;
+    private List<StyledText> styledTextsInternal = new ArrayList<>();
+    private TextRunCoalescer runCoalescer;
+    private PDDocument sourceDocument;
+    private int lastHandledPage;
+    private IntPredicate pageFilter;
+
+    StyleAwareTextStripper(ExtractionOptions options, PageHandler pageHandler) throws IOException {
+        super();
+        this.options = options;
+        this.pageHandler = pageHandler;
+        this.texts = options.includes(ContentPart.TEXT);
+        this.colors = texts && options.includes(ContentPart.COLORS);
+        this.layout = options.includes(ContentPart.LAYOUT) ? new LayoutBuilder() : null;
+        this.pageFilter = options::includesPage;
+        setSortByPosition(true);
+    }
+
+    /** Narrows the pages that are extracted and reported; by default, the selected pages. */
+    void setPageFilter(IntPredicate pageFilter) {
+        this.pageFilter = pageFilter;
+    }
+
+    void extract(PDDocument document) throws IOException {
+        sourceDocument = document;
+        lastHandledPage = getStartPage() - 1;
+        // The extracted text itself is never used, only the positions passed to writeString.
+        writeText(document, Writer.nullWriter());
+        handleBlankPagesBefore(document, Math.min(getEndPage(), document.getNumberOfPages()) + 1);
+    }
+
+    @Override
+    protected void startPage(PDPage page) throws IOException {
+        handleBlankPagesBefore(sourceDocument, getCurrentPageNo());
+        styledTextsInternal = new ArrayList<>();
+        if (texts && options.getTextGranularity() != TextGranularity.GLYPH) {
+            runCoalescer = new TextRunCoalescer(options.getTextGranularity(), options.isGlyphOffsets(), styledTextsInternal);
+        }
+        super.startPage(page);
+    }
+
+    @Override
+    protected void endPage(PDPage page) throws IOException {
+        super.endPage(page);
+        if (runCoalescer != null) {
+            runCoalescer.flush();
+            runCoalescer = null;
+        }
+        glyphColors.clear();
+        pageHandler.pageExtracted(page, getCurrentPageNo(), styledTextsInternal, layout != null ? layout.finishPage() : null);
+        styledTextsInternal = new ArrayList<>();
+        lastHandledPage = getCurrentPageNo();
+    }
+
+    /** Pages the filter rejects are never parsed. */
+    @Override
+    public void processPage(PDPage page) throws IOException {
+        if (pageFilter.test(getCurrentPageNo())) {
+            super.processPage(page);
+        }
+    }
+
+    private void handleBlankPagesBefore(PDDocument document, int pageNumber) throws IOException {
+        for (int blank = lastHandledPage + 1; blank < pageNumber; blank++) {
+            if (pageFilter.test(blank)) {
+                pageHandler.pageExtracted(document.getPage(blank - 1), blank, new ArrayList<>(),
+                        layout != null ? new ArrayList<>() : null);
+            }
+        }
+        lastHandledPage = Math.max(lastHandledPage, pageNumber - 1);
+    }
+
+    @Override
+    protected void processTextPosition(TextPosition text) {
+        // Colour has to be read while the glyph is being shown; by the time writeString runs the
+        // whole page has been processed and the graphics state is back to its initial values.
+        if (colors) {
+            glyphColors.put(text, resolveColor(getGraphicsState().getNonStrokingColor(), text));
+        }
+        super.processTextPosition(text);
+    }
+
+    @Override
+    protected void writeParagraphStart() throws IOException {
+        super.writeParagraphStart();
+        if (layout != null) {
+            layout.startBlock();
+        }
+    }
+
+    @Override
+    protected void writeParagraphEnd() throws IOException {
+        super.writeParagraphEnd();
+        if (layout != null) {
+            layout.endBlock();
+        }
+    }
+
+    @Override
+    protected void writeLineSeparator() throws IOException {
+        super.writeLineSeparator();
+        if (layout != null) {
+            layout.endLine();
+        }
+    }
+
+    /** Called once per word, in reading order. */
+    @Override
+    protected void writeString(String text, List<TextPosition> textPositions) throws IOException {
+        if (layout != null) {
+            layout.addWord(text, textPositions);
+        }
+        if (!texts) {
+            return;
+        }
+        for (TextPosition textPosition : textPositions) {
+            if (textPosition == null) continue;
+
+            PDFont font = textPosition.getFont();
+            String fontName = (font != null && font.getName() != null) ? font.getName() : "Unknown";
+
+            StyledText styledText = new StyledText();
+            styledText.setText(textPosition.getUnicode());
+            styledText.setFontName(fontName);
+            styledText.setFontSize(textPosition.getFontSizeInPt());
+
+            FontStyle fontStyle = fontStyle(font);
+            styledText.setBold(fontStyle.bold());
+            styledText.setItalic(fontStyle.italic());
+
+            styledText.setX(textPosition.getX());
+            styledText.setY(textPosition.getY());
+            styledText.setWidth(textPosition.getWidthDirAdj());
+            styledText.setHeight(textPosition.getHeightDir());
+
+            float[] rgb = colors ? glyphColors.getOrDefault(textPosition, DEFAULT_COLOR) : NO_COLOR;
+            styledText.setRed(rgb[0]);
+            styledText.setGreen(rgb[1]);
+            styledText.setBlue(rgb[2]);
+
+            if (runCoalescer != null) {
+                runCoalescer.add(styledText);
+            } else {
+                styledTextsInternal.add(styledText);
+            }
+        }
+    }
+
+    /**
+     * Fonts are shared by all glyphs of a document, so each one is classified once; consecutive
+     * glyphs almost always use the same font, which skips even the map lookup.
+     */
+    private FontStyle fontStyle(PDFont font) {
+        if (font == null) {
+            return FontStyle.REGULAR;
+        }
+        if (font != lastFont) {
+            lastFontStyle = fontStyles.computeIfAbsent(font, StyleUtils::styleOf);
+            lastFont = font;
+        }
+        return lastFontStyle;
+    }
+
+    private float[] resolveColor(PDColor pdColor, TextPosition textPosition) {
+        if (pdColor == null) {
+            return DEFAULT_COLOR;
+        }
+        if (pdColor == lastColor) {
+            return lastRgb;
+        }
+
+        float[] rgb;
+        try {
+            PDColorSpace cs = pdColor.getColorSpace();
+            float[] components = pdColor.getComponents();
+
+            if (cs instanceof PDDeviceRGB) {
+                rgb = components != null && components.length >= 3
+                        ? new float[]{components[0], components[1], components[2]}
+                        : DEFAULT_COLOR;
+            } else if (cs instanceof PDDeviceGray) {
+                rgb = components != null && components.length >= 1
+                        ? new float[]{components[0], components[0], components[0]}
+                        : DEFAULT_COLOR;
+            } else {
+                int packed = pdColor.toRGB();
+                rgb = new float[]{
+                        ((packed >> 16) & 0xFF) / 255.0f,
+                        ((packed >> 8) & 0xFF) / 255.0f,
+                        (packed & 0xFF) / 255.0f
+                };
+            }
+        } catch (IOException e) {
+            logger.warn("Could not process color for text '{}': {}", textPosition.getUnicode(), e.getMessage());
+            rgb = DEFAULT_COLOR;
+        }
+
+        lastColor = pdColor;
+        lastRgb = rgb;
+        return rgb;
+    }
+}
@@ -0,0 +1,20 @@
+package com.glez.frontendservice.pdf.converter;
+
+import java.util.Locale;
+
+public enum TextGranularity {
+    /** One StyledText per glyph. */
+    GLYPH,
+    /** Adjacent glyphs sharing font, size, colour and baseline merged into one StyledText. */
+    RUN,
+    /** All adjacent glyphs on a baseline merged into one StyledText, styled like its first glyph. */
+    LINE;
+
+    public static TextGranularity fromParameter(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported text granularity: " + value, e);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.glez.frontendservice.pdf.converter;
+
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes the texts of one page as a single BT/ET block. Font and colour operators are only emitted
+ * when they change, lines are started with relative Td moves, and further text on the same baseline
+ * is appended to one TJ array whose adjustments put each piece at its own x.
+ */
+class TextRenderPlanner {
+
+    private static final float BASELINE_TOLERANCE = 0.01f;
+    /** Adjustments smaller than this (in thousandths of an em) are left out of TJ arrays. */
+    private static final float MIN_ADJUSTMENT = 0.01f;
+
+    private final PDPageContentStream contentStream;
+
+    private boolean inText;
+    private PDFont font;
+    private float fontSize;
+    private float red = -1f;
+    private float green = -1f;
+    private float blue = -1f;
+
+    private float lineX;
+    private float lineY;
+    /** Where the text shown so far on the current line ends, in user space. */
+    private float penX;
+    private final List<Object> pending = new ArrayList<>();
+
+    TextRenderPlanner(PDPageContentStream contentStream) {
+        this.contentStream = contentStream;
+    }
+
+    /**
+     * Shows {@code text} with its origin at (x, y). Colour components below zero mean "no colour",
+     * in which case the current colour is kept. Throws {@link IllegalArgumentException} without
+     * writing anything if the font cannot encode the text.
+     */
+    void show(String text, float x, float y, PDFont font, float fontSize,
+              float red, float green, float blue) throws IOException {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        // Measured first: text the font cannot encode fails here, before any operator is written.
+        float width = font.getStringWidth(text) / 1000f * fontSize;
+        if (!inText) {
+            contentStream.beginText();
+            inText = true;
+        }
+        if (font != this.font || fontSize != this.fontSize) {
+            flush();
+            contentStream.setFont(font, fontSize);
+            this.font = font;
+            this.fontSize = fontSize;
+        }
+        if (red >= 0 && green >= 0 && blue >= 0
+                && (red != this.red || green != this.green || blue != this.blue)) {
+            flush();
+            contentStream.setNonStrokingColor(red, green, blue);
+            this.red = red;
+            this.green = green;
+            this.blue = blue;
+        }
+
+        // Adjustments are in thousandths of an em, which a zero font size does not have; such text is
+        // placed with Td instead.
+        if (!pending.isEmpty() && fontSize > 0 && Math.abs(y - lineY) < BASELINE_TOLERANCE) {
+            float adjustment = (penX - x) * 1000f / fontSize;
+            if (Math.abs(adjustment) >= MIN_ADJUSTMENT) {
+                pending.add(adjustment);
+            }
+        } else {
+            flush();
+            contentStream.newLineAtOffset(x - lineX, y - lineY);
+            lineX = x;
+            lineY = y;
+        }
+        pending.add(text);
+        penX = x + width;
+    }
+
+    /** Ends the text block, if any text was shown. Must be called before drawing anything else. */
+    void finish() throws IOException {
+        if (!inText) {
+            return;
+        }
+        flush();
+        contentStream.endText();
+        inText = false;
+        lineX = 0;
+        lineY = 0;
+    }
+
+    private void flush() throws IOException {
+        if (pending.isEmpty()) {
+            return;
+        }
+        if (pending.size() == 1) {
+            contentStream.showText((String) pending.get(0));
+        } else {
+            contentStream.showTextWithPositioning(pending.toArray());
+        }
+        pending.clear();
+    }
+}
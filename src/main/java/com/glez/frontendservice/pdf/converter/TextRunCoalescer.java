@@ -0,0 +1,115 @@
+package com.glez.frontendservice.pdf.converter;
+
+import com.glez.frontendservice.pdf.model.StyledText;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Merges consecutive glyphs that share font, size, style, colour and baseline into a single
+ * {@link StyledText}. Without glyph offsets a run is also broken at word gaps, so that drawing its
+ * text from the run origin lands close to where the glyphs were; with offsets the gaps are kept
+ * as a space and every code point carries its own x-offset relative to the run.
+ * <p>
+ * In line mode style changes do not end a run and word gaps are always kept as spaces; a line
+ * only ends at a baseline change or a gap wide enough to be a column break.
+ */
+class TextRunCoalescer {
+
+    private static final float BASELINE_TOLERANCE = 0.5f;
+    private static final float WORD_GAP_RATIO = 0.2f;
+    private static final float MAX_GAP_RATIO = 3f;
+
+    private final boolean glyphOffsets;
+    private final boolean lines;
+    private final List<StyledText> output;
+
+    private StyledText run;
+    private final StringBuilder runText = new StringBuilder();
+    private float[] offsets = new float[32];
+    private int offsetCount;
+    private float runEnd;
+
+    TextRunCoalescer(TextGranularity granularity, boolean glyphOffsets, List<StyledText> output) {
+        this.glyphOffsets = glyphOffsets;
+        this.lines = granularity == TextGranularity.LINE;
+        this.output = output;
+    }
+
+    void add(StyledText glyph) {
+        if (run != null && !continuesRun(glyph)) {
+            flush();
+        }
+        if (run == null) {
+            run = glyph;
+            runText.setLength(0);
+            offsetCount = 0;
+            runEnd = glyph.getX() + glyph.getWidth();
+            appendText(glyph);
+            return;
+        }
+
+        if ((glyphOffsets || lines) && glyph.getX() - runEnd > glyph.getFontSize() * WORD_GAP_RATIO) {
+            runText.append(' ');
+            if (glyphOffsets) {
+                addOffset(runEnd - run.getX());
+            }
+        }
+        appendText(glyph);
+        runEnd = Math.max(runEnd, glyph.getX() + glyph.getWidth());
+        run.setHeight(Math.max(run.getHeight(), glyph.getHeight()));
+    }
+
+    void flush() {
+        if (run == null) {
+            return;
+        }
+        run.setText(runText.toString());
+        run.setWidth(runEnd - run.getX());
+        if (glyphOffsets) {
+            run.setGlyphOffsets(Arrays.copyOf(offsets, offsetCount));
+        }
+        output.add(run);
+        run = null;
+    }
+
+    private boolean continuesRun(StyledText glyph) {
+        float gap = glyph.getX() - runEnd;
+        float maxGap = glyph.getFontSize() * (glyphOffsets || lines ? MAX_GAP_RATIO : WORD_GAP_RATIO);
+        boolean sameLine = gap > -BASELINE_TOLERANCE
+                && gap <= maxGap
+                && Math.abs(glyph.getY() - run.getY()) <= BASELINE_TOLERANCE;
+        if (lines || !sameLine) {
+            return sameLine;
+        }
+        return glyph.getFontSize() == run.getFontSize()
+                && glyph.isBold() == run.isBold()
+                && glyph.isItalic() == run.isItalic()
+                && glyph.getRed() == run.getRed()
+                && glyph.getGreen() == run.getGreen()
+                && glyph.getBlue() == run.getBlue()
+                && glyph.getFontName().equals(run.getFontName());
+    }
+
+    private void appendText(StyledText glyph) {
+        String text = glyph.getText();
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        runText.append(text);
+        if (glyphOffsets) {
+            int codePoints = text.codePointCount(0, text.length());
+            float relativeX = glyph.getX() - run.getX();
+            for (int i = 0; i < codePoints; i++) {
+                addOffset(relativeX + glyph.getWidth() * i / codePoints);
+            }
+        }
+    }
+
+    private void addOffset(float offset) {
+        if (offsetCount == offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsetCount * 2);
+        }
+        offsets[offsetCount++] = offset;
+    }
+}
@@ -0,0 +1,86 @@
+package com.glez.frontendservice.pdf.font;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType0Font;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Font lookups for one generated document. Configured font files are embedded as subsets, once per
+ * document, and resolved names are remembered so that per-glyph input does not repeat the lookup.
+ */
+public class DocumentFonts {
+
+    private final FontRegistry registry;
+    private final PDDocument document;
+    private final Map<FontRegistry.LoadedFont, PDFont> embedded = new IdentityHashMap<>();
+    private final Map<FontRequest, PDFont> resolved = new HashMap<>();
+
+    DocumentFonts(FontRegistry registry, PDDocument document) {
+        this.registry = registry;
+        this.document = document;
+    }
+
+    /**
+     * The configured font matching {@code fontName} by PostScript name or family, otherwise the
+     * Standard 14 font closest to it.
+     */
+    public PDFont resolve(String fontName, boolean bold, boolean italic) throws IOException {
+        FontRequest request = new FontRequest(fontName, bold, italic);
+        PDFont font = resolved.get(request);
+        if (font == null) {
+            String normalizedName = FontRegistry.normalize(fontName);
+            FontRegistry.LoadedFont loaded = registry.findLoadedFont(normalizedName, bold, italic);
+            font = loaded != null ? embed(loaded) : FontRegistry.standard14(normalizedName, bold, italic);
+            resolved.put(request, font);
+        }
+        return font;
+    }
+
+    /**
+     * Font for text the resolved font cannot encode: the configured fallback if there is one,
+     * otherwise the resolved font itself, to be used with {@link #encodable(PDFont, String)}.
+     */
+    public PDFont fallback(PDFont resolvedFont) throws IOException {
+        FontRegistry.LoadedFont fallback = registry.getFallback();
+        return fallback != null ? embed(fallback) : resolvedFont;
+    }
+
+    /** Replaces the code points {@code font} cannot encode with {@code ?}, or drops them if it cannot encode that either. */
+    public static String encodable(PDFont font, String text) {
+        StringBuilder result = new StringBuilder(text.length());
+        String replacement = canEncode(font, "?") ? "?" : "";
+        for (int offset = 0; offset < text.length(); ) {
+            int next = offset + Character.charCount(text.codePointAt(offset));
+            String codePoint = text.substring(offset, next);
+            result.append(canEncode(font, codePoint) ? codePoint : replacement);
+            offset = next;
+        }
+        return result.toString();
+    }
+
+    private static boolean canEncode(PDFont font, String text) {
+        try {
+            font.encode(text);
+            return true;
+        } catch (IllegalArgumentException | IOException e) {
+            return false;
+        }
+    }
+
+    private PDFont embed(FontRegistry.LoadedFont font) throws IOException {
+        PDFont pdFont = embedded.get(font);
+        if (pdFont == null) {
+            pdFont = PDType0Font.load(document, font.trueTypeFont(), true);
+            embedded.put(font, pdFont);
+        }
+        return pdFont;
+    }
+
+    private record FontRequest(String fontName, boolean bold, boolean italic) {
+    }
+}
@@ -0,0 +1,202 @@
+package com.glez.frontendservice.pdf.font;
+
+import com.glez.frontendservice.config.PdfProperties;
+import org.apache.fontbox.ttf.NamingTable;
+import org.apache.fontbox.ttf.OS2WindowsMetricsTable;
+import org.apache.fontbox.ttf.OTFParser;
+import org.apache.fontbox.ttf.OpenTypeFont;
+import org.apache.fontbox.ttf.TTFParser;
+import org.apache.fontbox.ttf.TrueTypeFont;
+import org.apache.pdfbox.io.RandomAccessReadBufferedFile;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Fonts available to PDF generation: the Standard 14 fonts plus the TrueType/OpenType files listed
+ * in {@code pdf.fonts.files}. Font files are parsed once at startup and shared by all documents;
+ * PDFBox reads TrueType tables under the font's own lock, the same way its font mapper shares
+ * system fonts. Each generated document embeds its own subset through {@link DocumentFonts}.
+ */
+@Component
+public class FontRegistry implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(FontRegistry.class);
+
+    private static final Map<Standard14Fonts.FontName, PDType1Font> STANDARD_14 = new EnumMap<>(Standard14Fonts.FontName.class);
+
+    static {
+        for (Standard14Fonts.FontName name : Standard14Fonts.FontName.values()) {
+            STANDARD_14.put(name, new PDType1Font(name));
+        }
+    }
+
+    private final List<LoadedFont> fonts;
+    private final LoadedFont fallback;
+
+    public FontRegistry(PdfProperties pdfProperties) {
+        PdfProperties.Fonts properties = pdfProperties.getFonts();
+        List<LoadedFont> loaded = new ArrayList<>();
+        for (String file : properties.getFiles()) {
+            LoadedFont font = load(new File(file));
+            if (font != null) {
+                loaded.add(font);
+            }
+        }
+        this.fonts = Collections.unmodifiableList(loaded);
+        this.fallback = properties.getFallback() == null ? null : loaded.stream()
+                .filter(font -> font.matchesName(normalize(properties.getFallback())))
+                .findFirst()
+                .orElse(null);
+        if (properties.getFallback() != null && this.fallback == null) {
+            logger.warn("Fallback font '{}' is not among the configured font files.", properties.getFallback());
+        }
+        logger.info("Font registry initialized with {} font file(s).", fonts.size());
+    }
+
+    /** Fonts for one output document; not thread-safe, like the document itself. */
+    public DocumentFonts forDocument(PDDocument document) {
+        return new DocumentFonts(this, document);
+    }
+
+    LoadedFont findLoadedFont(String normalizedName, boolean bold, boolean italic) {
+        for (LoadedFont font : fonts) {
+            if (normalizedName.equals(font.postScriptName())) {
+                return font;
+            }
+        }
+        LoadedFont best = null;
+        for (LoadedFont font : fonts) {
+            if (font.matchesFamily(normalizedName)
+                    && (best == null || font.styleDistance(bold, italic) < best.styleDistance(bold, italic))) {
+                best = font;
+            }
+        }
+        return best;
+    }
+
+    LoadedFont getFallback() {
+        return fallback;
+    }
+
+    /**
+     * Picks a Standard 14 font by the family the name suggests; unknown families map to Times, which
+     * is what generation always used before other fonts were supported.
+     */
+    static PDType1Font standard14(String normalizedName, boolean bold, boolean italic) {
+        if (normalizedName.contains("symbol")) {
+            return STANDARD_14.get(Standard14Fonts.FontName.SYMBOL);
+        }
+        if (normalizedName.contains("zapf") || normalizedName.contains("dingbat")) {
+            return STANDARD_14.get(Standard14Fonts.FontName.ZAPF_DINGBATS);
+        }
+        Standard14Fonts.FontName name;
+        if (normalizedName.contains("courier") || normalizedName.contains("mono")) {
+            name = bold && italic ? Standard14Fonts.FontName.COURIER_BOLD_OBLIQUE
+                    : bold ? Standard14Fonts.FontName.COURIER_BOLD
+                    : italic ? Standard14Fonts.FontName.COURIER_OBLIQUE
+                    : Standard14Fonts.FontName.COURIER;
+        } else if (normalizedName.contains("helvetica") || normalizedName.contains("arial") || normalizedName.contains("sans")) {
+            name = bold && italic ? Standard14Fonts.FontName.HELVETICA_BOLD_OBLIQUE
+                    : bold ? Standard14Fonts.FontName.HELVETICA_BOLD
+                    : italic ? Standard14Fonts.FontName.HELVETICA_OBLIQUE
+                    : Standard14Fonts.FontName.HELVETICA;
+        } else {
+            name = bold && italic ? Standard14Fonts.FontName.TIMES_BOLD_ITALIC
+                    : bold ? Standard14Fonts.FontName.TIMES_BOLD
+                    : italic ? Standard14Fonts.FontName.TIMES_ITALIC
+                    : Standard14Fonts.FontName.TIMES_ROMAN;
+        }
+        return STANDARD_14.get(name);
+    }
+
+    /**
+     * Lower-cases the name and drops the subset tag ({@code ABCDEF+}) and anything that is not a
+     * letter or digit, so that {@code ABCDEF+Arial-BoldMT} becomes {@code arialboldmt}.
+     */
+    static String normalize(String fontName) {
+        if (fontName == null) {
+            return "";
+        }
+        int start = fontName.length() > 7 && fontName.charAt(6) == '+' ? 7 : 0;
+        StringBuilder normalized = new StringBuilder(fontName.length() - start);
+        for (int i = start; i < fontName.length(); i++) {
+            char c = fontName.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                normalized.append(Character.toLowerCase(c));
+            }
+        }
+        return normalized.toString();
+    }
+
+    private static LoadedFont load(File file) {
+        try {
+            TrueTypeFont ttf;
+            if (file.getName().toLowerCase(Locale.ROOT).endsWith(".otf")) {
+                OpenTypeFont otf = new OTFParser().parse(new RandomAccessReadBufferedFile(file));
+                if (otf.isPostScript()) {
+                    logger.warn("Skipping font {}: CFF-based OpenType fonts cannot be embedded.", file);
+                    otf.close();
+                    return null;
+                }
+                ttf = otf;
+            } else {
+                ttf = new TTFParser().parse(new RandomAccessReadBufferedFile(file));
+            }
+
+            NamingTable naming = ttf.getNaming();
+            String postScriptName = ttf.getName();
+            String family = naming != null && naming.getFontFamily() != null ? naming.getFontFamily() : postScriptName;
+            String subFamily = naming != null && naming.getFontSubFamily() != null
+                    ? naming.getFontSubFamily().toLowerCase(Locale.ROOT) : "";
+            OS2WindowsMetricsTable os2 = ttf.getOS2Windows();
+            boolean bold = subFamily.contains("bold") || (os2 != null && os2.getWeightClass() >= 600);
+            boolean italic = subFamily.contains("italic") || subFamily.contains("oblique");
+
+            logger.info("Loaded font {} ({}) from {}", postScriptName, family, file);
+            return new LoadedFont(ttf, normalize(postScriptName), normalize(family), bold, italic);
+        } catch (IOException e) {
+            logger.warn("Could not load font {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        for (LoadedFont font : fonts) {
+            try {
+                font.trueTypeFont().close();
+            } catch (IOException e) {
+                logger.debug("Could not close font {}: {}", font.postScriptName(), e.getMessage());
+            }
+        }
+    }
+
+    record LoadedFont(TrueTypeFont trueTypeFont, String postScriptName, String family, boolean bold, boolean italic) {
+
+        boolean matchesName(String normalizedName) {
+            return normalizedName.equals(postScriptName) || normalizedName.equals(family);
+        }
+
+        boolean matchesFamily(String normalizedName) {
+            return !family.isEmpty() && normalizedName.startsWith(family);
+        }
+
+        int styleDistance(boolean wantBold, boolean wantItalic) {
+            return (bold == wantBold ? 0 : 1) + (italic == wantItalic ? 0 : 1);
+        }
+    }
+}
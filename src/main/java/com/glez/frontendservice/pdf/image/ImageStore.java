@@ -0,0 +1,84 @@
+package com.glez.frontendservice.pdf.image;
+
+import com.glez.frontendservice.cache.ByteSizeLruCache;
+import com.glez.frontendservice.cache.ByteSizeLruCacheMetrics;
+import com.glez.frontendservice.config.PdfProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Encoded images served out of band. Image ids are content hashes, so the bytes are stored once no
+ * matter how many pages or documents use them; each document only records which ids it references,
+ * which is what scopes {@code /images/{docId}/{imageId}} to the document.
+ */
+@Component
+public class ImageStore implements MeterBinder {
+
+    private final ByteSizeLruCache<String, StoredImage> images;
+    private final Map<String, Set<String>> documentImages;
+
+    public ImageStore(PdfProperties pdfProperties) {
+        PdfProperties.ImageStore properties = pdfProperties.getImages().getStore();
+        this.images = new ByteSizeLruCache<>(properties.getMaxBytes(), image -> 64L + image.data().length);
+        int maxDocuments = properties.getMaxDocuments();
+        this.documentImages = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Set<String>> eldest) {
+                return size() > maxDocuments;
+            }
+        };
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        ByteSizeLruCacheMetrics.monitor(registry, images, "images");
+    }
+
+    public void put(String documentId, String imageId, StoredImage image) {
+        images.put(imageId, image);
+        link(documentId, imageId);
+    }
+
+    public void link(String documentId, String imageId) {
+        synchronized (documentImages) {
+            documentImages.computeIfAbsent(documentId, id -> new HashSet<>()).add(imageId);
+        }
+    }
+
+    public boolean containsImage(String imageId) {
+        return images.containsKey(imageId);
+    }
+
+    public Optional<StoredImage> get(String documentId, String imageId) {
+        synchronized (documentImages) {
+            Set<String> ids = documentImages.get(documentId);
+            if (ids == null || !ids.contains(imageId)) {
+                return Optional.empty();
+            }
+        }
+        return Optional.ofNullable(images.get(imageId));
+    }
+
+    public boolean containsAll(String documentId, Collection<String> imageIds) {
+        for (String imageId : imageIds) {
+            if (get(documentId, imageId).isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void evictDocument(String documentId) {
+        synchronized (documentImages) {
+            documentImages.remove(documentId);
+        }
+    }
+}
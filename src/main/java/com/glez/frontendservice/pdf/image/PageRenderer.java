@@ -0,0 +1,52 @@
+package com.glez.frontendservice.pdf.image;
+
+import com.glez.frontendservice.config.PdfProperties;
+import com.glez.frontendservice.pdf.util.PDFUtils;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.RandomAccessStreamCache.StreamCacheCreateFunction;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Rasterizes single pages for previews.
+ */
+@Component
+public class PageRenderer {
+
+    private final StreamCacheCreateFunction streamCache;
+
+    public PageRenderer(PdfProperties pdfProperties) {
+        this.streamCache = PDFUtils.streamCache(pdfProperties.getMemory());
+    }
+
+    /**
+     * Renders a 1-based page as PNG or JPEG. Throws {@link IllegalArgumentException} for pages the
+     * document does not have.
+     */
+    public StoredImage render(Path pdfFile, int pageNumber, float dpi, String format) throws IOException {
+        try (PDDocument document = Loader.loadPDF(pdfFile.toFile(), streamCache)) {
+            int pageCount = document.getNumberOfPages();
+            if (pageNumber < 1 || pageNumber > pageCount) {
+                throw new IllegalArgumentException(String.format("Page %d does not exist; the document has %d pages.", pageNumber, pageCount));
+            }
+            PDFRenderer renderer = new PDFRenderer(document);
+            // Previews do not need full-resolution images, and subsampling large ones is much faster.
+            renderer.setSubsamplingAllowed(true);
+            BufferedImage image = renderer.renderImageWithDPI(pageNumber - 1, dpi, ImageType.RGB);
+
+            ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+            if (!ImageIO.write(image, format, encoded)) {
+                throw new IOException("No image writer for format " + format);
+            }
+            return new StoredImage(format, encoded.toByteArray());
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.glez.frontendservice.pdf.image;
+
+import java.util.Locale;
+
+public record StoredImage(String format, byte[] data) {
+
+    public String mediaType() {
+        return switch (format == null ? "" : format.toLowerCase(Locale.ROOT)) {
+            case "png" -> "image/png";
+            case "jpg", "jpeg" -> "image/jpeg";
+            case "gif" -> "image/gif";
+            case "bmp" -> "image/bmp";
+            case "tif", "tiff" -> "image/tiff";
+            default -> "application/octet-stream";
+        };
+    }
+}
@@ -0,0 +1,186 @@
+package com.glez.frontendservice.pdf.model;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.function.Consumer;
+
+/**
+ * Shared plumbing for the streaming serialization of the model. Every model class writes itself to
+ * a {@link JsonGenerator} and reads itself from a {@link JsonParser}; Spring's Jackson mappers (JSON,
+ * CBOR, Smile) call those through {@link Serializer} and the per-class deserializers, and the
+ * {@code org.json} methods are adapters over the same code.
+ * <p>
+ * Null values are left out, and unknown fields are skipped when reading.
+ */
+public final class ModelJson {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private ModelJson() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /** A model object that writes itself as one JSON object. */
+    interface Writable {
+        void writeTo(JsonGenerator generator) throws IOException;
+    }
+
+    @FunctionalInterface
+    interface Reader<T> {
+        T readFrom(JsonParser parser) throws IOException;
+    }
+
+    @FunctionalInterface
+    interface FieldReader {
+        /** Reads the value of {@code field}; the parser is on its first token and must be left on its last. */
+        void read(String field) throws IOException;
+    }
+
+    /** Jackson serializer for every model class, delegating to its {@code writeTo}. */
+    public static class Serializer extends JsonSerializer<Writable> {
+        @Override
+        public void serialize(Writable value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            value.writeTo(generator);
+        }
+    }
+
+    static JSONObject toJsonObject(Writable value) {
+        StringWriter json = new StringWriter();
+        try (JsonGenerator generator = FACTORY.createGenerator(json)) {
+            value.writeTo(generator);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new JSONObject(json.toString());
+    }
+
+    static <T> T fromJsonObject(JSONObject json, Reader<T> reader) {
+        try (JsonParser parser = FACTORY.createParser(json.toString())) {
+            parser.nextToken();
+            return reader.readFrom(parser);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads the fields of the object the parser is on, leaving the parser on its END_OBJECT. The
+     * parser may also be on the first field name, which is where Jackson hands over sometimes.
+     */
+    static void readObject(JsonParser parser, FieldReader fieldReader) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            token = parser.nextToken();
+        } else if (token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT) {
+            throw new JsonParseException(parser, "Expected an object but found " + token);
+        }
+        for (; token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+            String field = parser.currentName();
+            parser.nextToken();
+            fieldReader.read(field);
+        }
+    }
+
+    /** Reads every element of the array the parser is on; null elements and a null array are skipped. */
+    static <T> void readArray(JsonParser parser, Reader<T> elementReader, Consumer<T> consumer) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (parser.currentToken() != JsonToken.VALUE_NULL) {
+                consumer.accept(elementReader.readFrom(parser));
+            }
+        }
+    }
+
+    static float[] readFloats(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return null;
+        }
+        float[] values = new float[16];
+        int size = 0;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = parser.getFloatValue();
+        }
+        return Arrays.copyOf(values, size);
+    }
+
+    static void writeFloats(JsonGenerator generator, String field, float[] values) throws IOException {
+        generator.writeFieldName(field);
+        generator.writeStartArray(values, values.length);
+        for (float value : values) {
+            generator.writeNumber(value);
+        }
+        generator.writeEndArray();
+    }
+
+    static void writeString(JsonGenerator generator, String field, String value) throws IOException {
+        if (value != null) {
+            generator.writeStringField(field, value);
+        }
+    }
+
+    /**
+     * Writes Base64 text as is to JSON, and as raw bytes to formats with a binary type (CBOR, Smile),
+     * which saves the third Base64 adds. Text that is not valid Base64 is written as text everywhere.
+     */
+    static void writeBase64(JsonGenerator generator, String field, String base64) throws IOException {
+        if (base64 == null) {
+            return;
+        }
+        if (generator.canWriteBinaryNatively()) {
+            byte[] bytes;
+            try {
+                bytes = Base64.getDecoder().decode(base64);
+            } catch (IllegalArgumentException e) {
+                generator.writeStringField(field, base64);
+                return;
+            }
+            generator.writeFieldName(field);
+            generator.writeBinary(bytes);
+            return;
+        }
+        generator.writeStringField(field, base64);
+    }
+
+    /** Reads a value written by {@link #writeBase64}, as Base64 text. */
+    static String base64Value(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_EMBEDDED_OBJECT) {
+            return Base64.getEncoder().encodeToString(parser.getBinaryValue());
+        }
+        return stringValue(parser);
+    }
+
+    static String stringValue(JsonParser parser) throws IOException {
+        return parser.currentToken() == JsonToken.VALUE_NULL ? null : parser.getValueAsString();
+    }
+
+    static float floatValue(JsonParser parser, float defaultValue) throws IOException {
+        return parser.currentToken().isNumeric() ? parser.getFloatValue() : defaultValue;
+    }
+
+    static int intValue(JsonParser parser, int defaultValue) throws IOException {
+        return parser.currentToken().isNumeric() ? parser.getValueAsInt() : defaultValue;
+    }
+
+    static boolean booleanValue(JsonParser parser, boolean defaultValue) throws IOException {
+        return parser.getValueAsBoolean(defaultValue);
+    }
+}
@@ -1,55 +1,82 @@
 package com.glez.frontendservice.pdf.model;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import lombok.Data;
-import org.json.JSONArray;
 import org.json.JSONObject;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 @Data
-public class PDFDocument {
+@JsonSerialize(using = ModelJson.Serializer.class)
+@JsonDeserialize(using = PDFDocument.Deserializer.class)
+public class PDFDocument implements ModelJson.Writable {
+    private String id;
     private PDFMetadata metadata;
     private List<PDFPage> pages = new ArrayList<>();
 
-    public JSONObject toJson() {
-        JSONObject json = new JSONObject();
-
-        if (this.metadata != null) {
-            json.put("metadata", this.metadata.toJson());
+    /** A deep copy, so that cached documents can be handed out without sharing mutable state. */
+    public PDFDocument copy() {
+        PDFDocument copy = new PDFDocument();
+        copy.setId(id);
+        copy.setMetadata(metadata != null ? metadata.copy() : null);
+        for (PDFPage page : pages) {
+            copy.getPages().add(page.copy());
         }
+        return copy;
+    }
 
-        List<JSONObject> pageJsonObjects = this.pages.stream()
-                .filter(Objects::nonNull)
-                .map(PDFPage::toJson)
-                .collect(Collectors.toList());
-        json.put("pages", new JSONArray(pageJsonObjects));
-
-        return json;
+    @Override
+    public void writeTo(JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        ModelJson.writeString(generator, "id", id);
+        if (metadata != null) {
+            generator.writeFieldName("metadata");
+            metadata.writeTo(generator);
+        }
+        generator.writeArrayFieldStart("pages");
+        for (PDFPage page : pages) {
+            if (page != null) {
+                page.writeTo(generator);
+            }
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
     }
 
-    public static PDFDocument fromJson(JSONObject json) {
+    public static PDFDocument readFrom(JsonParser parser) throws IOException {
         PDFDocument document = new PDFDocument();
+        ModelJson.readObject(parser, field -> {
+            switch (field) {
+                case "id" -> document.setId(ModelJson.stringValue(parser));
+                case "metadata" -> document.setMetadata(
+                        parser.currentToken() == JsonToken.START_OBJECT ? PDFMetadata.readFrom(parser) : null);
+                case "pages" -> ModelJson.readArray(parser, PDFPage::readFrom, document.getPages()::add);
+                default -> parser.skipChildren();
+            }
+        });
+        return document;
+    }
 
-        if (json.has("metadata") && !json.isNull("metadata")) {
-            JSONObject metadataJson = json.getJSONObject("metadata");
-            document.setMetadata(PDFMetadata.fromJson(metadataJson));
-        }
+    public JSONObject toJson() {
+        return ModelJson.toJsonObject(this);
+    }
 
-        if (json.has("pages") && !json.isNull("pages")) {
-            JSONArray pagesArray = json.getJSONArray("pages");
+    public static PDFDocument fromJson(JSONObject json) {
+        return ModelJson.fromJsonObject(json, PDFDocument::readFrom);
+    }
 
-            List<PDFPage> parsedPages = IntStream.range(0, pagesArray.length())
-                    .filter(i -> !pagesArray.isNull(i))
-                    .mapToObj(pagesArray::getJSONObject)
-                    .map(PDFPage::fromJson)
-                    .collect(Collectors.toList());
-            document.setPages(parsedPages);
+    public static class Deserializer extends JsonDeserializer<PDFDocument> {
+        @Override
+        public PDFDocument deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            return readFrom(parser);
         }
-
-        return document;
     }
-}
\ No newline at end of file
+}
@@ -1,17 +1,28 @@
 package com.glez.frontendservice.pdf.model;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.json.JSONObject;
 
+import java.io.IOException;
+
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
-public class PDFImage {
+@JsonSerialize(using = ModelJson.Serializer.class)
+@JsonDeserialize(using = PDFImage.Deserializer.class)
+public class PDFImage implements ModelJson.Writable {
 
+    private static final String KEY_ID = "id";
     private static final String KEY_NAME = "name";
     private static final String KEY_FORMAT = "format";
     private static final String KEY_WIDTH = "width";
@@ -20,6 +31,7 @@ public class PDFImage {
     private static final String KEY_X = "x";
     private static final String KEY_Y = "y";
 
+    private String id;
     private String name;
     private String format;
     private int width;
@@ -28,27 +40,54 @@ public class PDFImage {
     private float x;
     private float y;
 
+    public PDFImage copy() {
+        return toBuilder().build();
+    }
+
+    @Override
+    public void writeTo(JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        ModelJson.writeString(generator, KEY_ID, id);
+        ModelJson.writeString(generator, KEY_NAME, name);
+        ModelJson.writeString(generator, KEY_FORMAT, format);
+        generator.writeNumberField(KEY_WIDTH, width);
+        generator.writeNumberField(KEY_HEIGHT, height);
+        ModelJson.writeBase64(generator, KEY_DATA, data);
+        generator.writeNumberField(KEY_X, x);
+        generator.writeNumberField(KEY_Y, y);
+        generator.writeEndObject();
+    }
+
+    public static PDFImage readFrom(JsonParser parser) throws IOException {
+        PDFImageBuilder builder = PDFImage.builder();
+        ModelJson.readObject(parser, field -> {
+            switch (field) {
+                case KEY_ID -> builder.id(ModelJson.stringValue(parser));
+                case KEY_NAME -> builder.name(ModelJson.stringValue(parser));
+                case KEY_FORMAT -> builder.format(ModelJson.stringValue(parser));
+                case KEY_WIDTH -> builder.width(ModelJson.intValue(parser, 0));
+                case KEY_HEIGHT -> builder.height(ModelJson.intValue(parser, 0));
+                case KEY_DATA -> builder.data(ModelJson.base64Value(parser));
+                case KEY_X -> builder.x(ModelJson.floatValue(parser, 0f));
+                case KEY_Y -> builder.y(ModelJson.floatValue(parser, 0f));
+                default -> parser.skipChildren();
+            }
+        });
+        return builder.build();
+    }
+
     public JSONObject toJson() {
-        JSONObject json = new JSONObject();
-        json.put(KEY_NAME, name);
-        json.put(KEY_FORMAT, format);
-        json.put(KEY_WIDTH, width);
-        json.put(KEY_HEIGHT, height);
-        json.put(KEY_DATA, data);
-        json.put(KEY_X, x);
-        json.put(KEY_Y, y);
-        return json;
+        return ModelJson.toJsonObject(this);
     }
 
     public static PDFImage fromJson(JSONObject json) {
-        return PDFImage.builder()
-                .name(json.getString(KEY_NAME))
-                .format(json.getString(KEY_FORMAT))
-                .width(json.getInt(KEY_WIDTH))
-                .height(json.getInt(KEY_HEIGHT))
-                .data(json.getString(KEY_DATA))
-                .x((float) json.getDouble(KEY_X))
-                .y((float) json.getDouble(KEY_Y))
-                .build();
+        return ModelJson.fromJsonObject(json, PDFImage::readFrom);
+    }
+
+    public static class Deserializer extends JsonDeserializer<PDFImage> {
+        @Override
+        public PDFImage deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            return readFrom(parser);
+        }
     }
-}
\ No newline at end of file
+}
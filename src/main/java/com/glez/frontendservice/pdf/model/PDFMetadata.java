@@ -1,18 +1,27 @@
 package com.glez.frontendservice.pdf.model;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.json.JSONObject;
 
+import java.io.IOException;
 import java.time.Instant;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
-public class PDFMetadata {
+@JsonSerialize(using = ModelJson.Serializer.class)
+@JsonDeserialize(using = PDFMetadata.Deserializer.class)
+public class PDFMetadata implements ModelJson.Writable {
     private String title;
     private String author;
     private String creator;
@@ -21,32 +30,67 @@ public class PDFMetadata {
     private Instant modificationDate;
     private int totalPages;
 
-    private static final long NULL_TIMESTAMP_SENTINEL = -1L;
+    public PDFMetadata copy() {
+        return toBuilder().build();
+    }
+
+    /**
+     * Dates are written as ISO-8601 instants; epoch milliseconds, which {@code toJson} used to
+     * write, are still accepted when reading.
+     */
+    @Override
+    public void writeTo(JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        ModelJson.writeString(generator, "title", title);
+        ModelJson.writeString(generator, "author", author);
+        ModelJson.writeString(generator, "creator", creator);
+        ModelJson.writeString(generator, "producer", producer);
+        ModelJson.writeString(generator, "creationDate", creationDate != null ? creationDate.toString() : null);
+        ModelJson.writeString(generator, "modificationDate", modificationDate != null ? modificationDate.toString() : null);
+        generator.writeNumberField("totalPages", totalPages);
+        generator.writeEndObject();
+    }
+
+    public static PDFMetadata readFrom(JsonParser parser) throws IOException {
+        PDFMetadataBuilder builder = PDFMetadata.builder();
+        ModelJson.readObject(parser, field -> {
+            switch (field) {
+                case "title" -> builder.title(ModelJson.stringValue(parser));
+                case "author" -> builder.author(ModelJson.stringValue(parser));
+                case "creator" -> builder.creator(ModelJson.stringValue(parser));
+                case "producer" -> builder.producer(ModelJson.stringValue(parser));
+                case "creationDate" -> builder.creationDate(readInstant(parser));
+                case "modificationDate" -> builder.modificationDate(readInstant(parser));
+                case "totalPages" -> builder.totalPages(ModelJson.intValue(parser, 0));
+                default -> parser.skipChildren();
+            }
+        });
+        return builder.build();
+    }
+
+    private static Instant readInstant(JsonParser parser) throws IOException {
+        return switch (parser.currentToken()) {
+            case VALUE_NUMBER_INT -> Instant.ofEpochMilli(parser.getLongValue());
+            case VALUE_STRING -> Instant.parse(parser.getText());
+            default -> {
+                parser.skipChildren();
+                yield null;
+            }
+        };
+    }
 
     public JSONObject toJson() {
-        JSONObject json = new JSONObject();
-        json.put("title", title);
-        json.put("author", author);
-        json.put("creator", creator);
-        json.put("producer", producer);
-        json.put("creationDate", creationDate != null ? creationDate.toEpochMilli() : null);
-        json.put("modificationDate", modificationDate != null ? modificationDate.toEpochMilli() : null);
-        json.put("totalPages", totalPages);
-        return json;
+        return ModelJson.toJsonObject(this);
     }
 
     public static PDFMetadata fromJson(JSONObject json) {
-        long creationTimestamp = json.optLong("creationDate", NULL_TIMESTAMP_SENTINEL);
-        long modificationTimestamp = json.optLong("modificationDate", NULL_TIMESTAMP_SENTINEL);
-
-        return PDFMetadata.builder()
-                .title(json.optString("title", null))
-                .author(json.optString("author", null))
-                .creator(json.optString("creator", null))
-                .producer(json.optString("producer", null))
-                .totalPages(json.optInt("totalPages"))
-                .creationDate(creationTimestamp != NULL_TIMESTAMP_SENTINEL ? Instant.ofEpochMilli(creationTimestamp) : null)
-                .modificationDate(modificationTimestamp != NULL_TIMESTAMP_SENTINEL ? Instant.ofEpochMilli(modificationTimestamp) : null)
-                .build();
+        return ModelJson.fromJsonObject(json, PDFMetadata::readFrom);
+    }
+
+    public static class Deserializer extends JsonDeserializer<PDFMetadata> {
+        @Override
+        public PDFMetadata deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            return readFrom(parser);
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,61 +1,124 @@
 package com.glez.frontendservice.pdf.model;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import lombok.Data;
-import org.json.JSONArray;
 import org.json.JSONObject;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 @Data
-public class PDFPage {
+@JsonSerialize(using = ModelJson.Serializer.class)
+@JsonDeserialize(using = PDFPage.Deserializer.class)
+public class PDFPage implements ModelJson.Writable {
     private int pageNumber;
     private float width;
     private float height;
     private List<StyledText> texts = new ArrayList<>();
     private List<PDFImage> images = new ArrayList<>();
+    /** Words, lines and paragraphs in reading order; only present when layout was requested. */
+    private List<TextBlock> blocks;
+    /** Hash of the page's content streams and resources, when page reuse is enabled. */
+    private String fingerprint;
+    /** Whether the page was taken from an earlier extraction of identical content; only written when true. */
+    private boolean reused;
+
+    /** A deep copy, so that cached pages can be handed out without sharing mutable state. */
+    public PDFPage copy() {
+        PDFPage copy = new PDFPage();
+        copy.setPageNumber(pageNumber);
+        copy.setWidth(width);
+        copy.setHeight(height);
+        for (StyledText text : texts) {
+            copy.getTexts().add(text.copy());
+        }
+        for (PDFImage image : images) {
+            copy.getImages().add(image.copy());
+        }
+        if (blocks != null) {
+            List<TextBlock> blocksCopy = new ArrayList<>(blocks.size());
+            for (TextBlock block : blocks) {
+                blocksCopy.add(block.copy());
+            }
+            copy.setBlocks(blocksCopy);
+        }
+        copy.setFingerprint(fingerprint);
+        copy.setReused(reused);
+        return copy;
+    }
+
+    @Override
+    public void writeTo(JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("pageNumber", pageNumber);
+        generator.writeNumberField("width", width);
+        generator.writeNumberField("height", height);
+        ModelJson.writeString(generator, "fingerprint", fingerprint);
+        if (reused) {
+            generator.writeBooleanField("reused", true);
+        }
+
+        generator.writeArrayFieldStart("texts");
+        for (StyledText text : texts) {
+            text.writeTo(generator);
+        }
+        generator.writeEndArray();
+
+        generator.writeArrayFieldStart("images");
+        for (PDFImage image : images) {
+            image.writeTo(generator);
+        }
+        generator.writeEndArray();
+
+        if (blocks != null) {
+            generator.writeArrayFieldStart("blocks");
+            for (TextBlock block : blocks) {
+                block.writeTo(generator);
+            }
+            generator.writeEndArray();
+        }
+        generator.writeEndObject();
+    }
+
+    public static PDFPage readFrom(JsonParser parser) throws IOException {
+        PDFPage page = new PDFPage();
+        ModelJson.readObject(parser, field -> {
+            switch (field) {
+                case "pageNumber" -> page.setPageNumber(ModelJson.intValue(parser, 0));
+                case "width" -> page.setWidth(ModelJson.floatValue(parser, 0f));
+                case "height" -> page.setHeight(ModelJson.floatValue(parser, 0f));
+                case "fingerprint" -> page.setFingerprint(ModelJson.stringValue(parser));
+                case "reused" -> page.setReused(ModelJson.booleanValue(parser, false));
+                case "texts" -> ModelJson.readArray(parser, StyledText::readFrom, page.getTexts()::add);
+                case "images" -> ModelJson.readArray(parser, PDFImage::readFrom, page.getImages()::add);
+                case "blocks" -> {
+                    page.setBlocks(new ArrayList<>());
+                    ModelJson.readArray(parser, TextBlock::readFrom, page.getBlocks()::add);
+                }
+                default -> parser.skipChildren();
+            }
+        });
+        return page;
+    }
 
     public JSONObject toJson() {
-        JSONObject json = new JSONObject();
-        json.put("pageNumber", pageNumber);
-        json.put("width", width);
-        json.put("height", height);
-
-        json.put("texts", new JSONArray(
-                texts.stream()
-                        .map(StyledText::toJson)
-                        .collect(Collectors.toList())
-        ));
-
-        json.put("images", new JSONArray(
-                images.stream()
-                        .map(PDFImage::toJson)
-                        .collect(Collectors.toList())
-        ));
-
-        return json;
+        return ModelJson.toJsonObject(this);
     }
 
     public static PDFPage fromJson(JSONObject json) {
-        PDFPage page = new PDFPage();
-        page.setPageNumber(json.getInt("pageNumber"));
-        page.setWidth(json.getFloat("width"));
-        page.setHeight(json.getFloat("height"));
-
-        JSONArray textsArray = json.getJSONArray("texts");
-        IntStream.range(0, textsArray.length())
-                .mapToObj(textsArray::getJSONObject)
-                .map(StyledText::fromJson)
-                .forEach(page.getTexts()::add);
-
-        JSONArray imagesArray = json.getJSONArray("images");
-        IntStream.range(0, imagesArray.length())
-                .mapToObj(imagesArray::getJSONObject)
-                .map(PDFImage::fromJson)
-                .forEach(page.getImages()::add);
+        return ModelJson.fromJsonObject(json, PDFPage::readFrom);
+    }
 
-        return page;
+    public static class Deserializer extends JsonDeserializer<PDFPage> {
+        @Override
+        public PDFPage deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            return readFrom(parser);
+        }
     }
-}
\ No newline at end of file
+}
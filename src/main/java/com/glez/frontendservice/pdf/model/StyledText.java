@@ -1,13 +1,23 @@
 package com.glez.frontendservice.pdf.model;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import lombok.*;
 import org.json.JSONObject;
 
+import java.io.IOException;
+
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
-public class StyledText {
+@JsonSerialize(using = ModelJson.Serializer.class)
+@JsonDeserialize(using = StyledText.Deserializer.class)
+public class StyledText implements ModelJson.Writable {
 
     private static final String KEY_TEXT = "text";
     private static final String KEY_FONT_NAME = "fontName";
@@ -23,6 +33,7 @@ public class StyledText {
     private static final String KEY_RED = "red";
     private static final String KEY_GREEN = "green";
     private static final String KEY_BLUE = "blue";
+    private static final String KEY_GLYPH_OFFSETS = "glyphOffsets";
 
     private String text;
     private String fontName;
@@ -43,42 +54,73 @@ public class StyledText {
     private float green = -1f;
     @Builder.Default
     private float blue = -1f;
+    /** X-offset of each code point of {@code text}, relative to {@code x}; only set for coalesced runs. */
+    private float[] glyphOffsets;
+
+    public StyledText copy() {
+        return toBuilder().glyphOffsets(glyphOffsets != null ? glyphOffsets.clone() : null).build();
+    }
+
+    @Override
+    public void writeTo(JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        ModelJson.writeString(generator, KEY_TEXT, text);
+        ModelJson.writeString(generator, KEY_FONT_NAME, fontName);
+        generator.writeNumberField(KEY_FONT_SIZE, fontSize);
+        generator.writeBooleanField(KEY_BOLD, bold);
+        generator.writeBooleanField(KEY_ITALIC, italic);
+        generator.writeBooleanField(KEY_UNDERLINED, underlined);
+        generator.writeBooleanField(KEY_STRIKETHROUGH, strikethrough);
+        generator.writeNumberField(KEY_X, x);
+        generator.writeNumberField(KEY_Y, y);
+        generator.writeNumberField(KEY_WIDTH, width);
+        generator.writeNumberField(KEY_HEIGHT, height);
+        generator.writeNumberField(KEY_RED, red);
+        generator.writeNumberField(KEY_GREEN, green);
+        generator.writeNumberField(KEY_BLUE, blue);
+        if (glyphOffsets != null) {
+            ModelJson.writeFloats(generator, KEY_GLYPH_OFFSETS, glyphOffsets);
+        }
+        generator.writeEndObject();
+    }
+
+    public static StyledText readFrom(JsonParser parser) throws IOException {
+        StyledTextBuilder builder = StyledText.builder();
+        ModelJson.readObject(parser, field -> {
+            switch (field) {
+                case KEY_TEXT -> builder.text(ModelJson.stringValue(parser));
+                case KEY_FONT_NAME -> builder.fontName(ModelJson.stringValue(parser));
+                case KEY_FONT_SIZE -> builder.fontSize(ModelJson.floatValue(parser, 0f));
+                case KEY_BOLD -> builder.bold(ModelJson.booleanValue(parser, false));
+                case KEY_ITALIC -> builder.italic(ModelJson.booleanValue(parser, false));
+                case KEY_UNDERLINED -> builder.underlined(ModelJson.booleanValue(parser, false));
+                case KEY_STRIKETHROUGH -> builder.strikethrough(ModelJson.booleanValue(parser, false));
+                case KEY_X -> builder.x(ModelJson.floatValue(parser, 0f));
+                case KEY_Y -> builder.y(ModelJson.floatValue(parser, 0f));
+                case KEY_WIDTH -> builder.width(ModelJson.floatValue(parser, 0f));
+                case KEY_HEIGHT -> builder.height(ModelJson.floatValue(parser, 0f));
+                case KEY_RED -> builder.red(ModelJson.floatValue(parser, -1f));
+                case KEY_GREEN -> builder.green(ModelJson.floatValue(parser, -1f));
+                case KEY_BLUE -> builder.blue(ModelJson.floatValue(parser, -1f));
+                case KEY_GLYPH_OFFSETS -> builder.glyphOffsets(ModelJson.readFloats(parser));
+                default -> parser.skipChildren();
+            }
+        });
+        return builder.build();
+    }
 
     public JSONObject toJson() {
-        JSONObject json = new JSONObject();
-        json.put(KEY_TEXT, text);
-        json.put(KEY_FONT_NAME, fontName);
-        json.put(KEY_FONT_SIZE, fontSize);
-        json.put(KEY_BOLD, bold);
-        json.put(KEY_ITALIC, italic);
-        json.put(KEY_UNDERLINED, underlined);
-        json.put(KEY_STRIKETHROUGH, strikethrough);
-        json.put(KEY_X, x);
-        json.put(KEY_Y, y);
-        json.put(KEY_WIDTH, width);
-        json.put(KEY_HEIGHT, height);
-        json.put(KEY_RED, red);
-        json.put(KEY_GREEN, green);
-        json.put(KEY_BLUE, blue);
-        return json;
+        return ModelJson.toJsonObject(this);
     }
 
     public static StyledText fromJson(JSONObject json) {
-        return StyledText.builder()
-                .text(json.getString(KEY_TEXT))
-                .fontName(json.getString(KEY_FONT_NAME))
-                .fontSize(json.getFloat(KEY_FONT_SIZE))
-                .bold(json.getBoolean(KEY_BOLD))
-                .italic(json.getBoolean(KEY_ITALIC))
-                .underlined(json.optBoolean(KEY_UNDERLINED, false))
-                .strikethrough(json.optBoolean(KEY_STRIKETHROUGH, false))
-                .x(json.getFloat(KEY_X))
-                .y(json.getFloat(KEY_Y))
-                .width(json.getFloat(KEY_WIDTH))
-                .height(json.getFloat(KEY_HEIGHT))
-                .red(json.optFloat(KEY_RED, -1f))
-                .green(json.optFloat(KEY_GREEN, -1f))
-                .blue(json.optFloat(KEY_BLUE, -1f))
-                .build();
+        return ModelJson.fromJsonObject(json, StyledText::readFrom);
+    }
+
+    public static class Deserializer extends JsonDeserializer<StyledText> {
+        @Override
+        public StyledText deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            return readFrom(parser);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,78 @@
+package com.glez.frontendservice.pdf.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import lombok.Data;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A paragraph of lines in reading order. Unlike lines, a block's box is given by its top edge:
+ * {@code y} is the top of the first line and {@code height} reaches down to the last baseline.
+ */
+@Data
+@JsonSerialize(using = ModelJson.Serializer.class)
+@JsonDeserialize(using = TextBlock.Deserializer.class)
+public class TextBlock implements ModelJson.Writable {
+
+    private float x;
+    private float y;
+    private float width;
+    private float height;
+    private List<TextLine> lines = new ArrayList<>();
+
+    public TextBlock copy() {
+        TextBlock copy = new TextBlock();
+        copy.setX(x);
+        copy.setY(y);
+        copy.setWidth(width);
+        copy.setHeight(height);
+        for (TextLine line : lines) {
+            copy.getLines().add(line.copy());
+        }
+        return copy;
+    }
+
+    @Override
+    public void writeTo(JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("x", x);
+        generator.writeNumberField("y", y);
+        generator.writeNumberField("width", width);
+        generator.writeNumberField("height", height);
+        generator.writeArrayFieldStart("lines");
+        for (TextLine line : lines) {
+            line.writeTo(generator);
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    public static TextBlock readFrom(JsonParser parser) throws IOException {
+        TextBlock block = new TextBlock();
+        ModelJson.readObject(parser, field -> {
+            switch (field) {
+                case "x" -> block.setX(ModelJson.floatValue(parser, 0f));
+                case "y" -> block.setY(ModelJson.floatValue(parser, 0f));
+                case "width" -> block.setWidth(ModelJson.floatValue(parser, 0f));
+                case "height" -> block.setHeight(ModelJson.floatValue(parser, 0f));
+                case "lines" -> ModelJson.readArray(parser, TextLine::readFrom, block.getLines()::add);
+                default -> parser.skipChildren();
+            }
+        });
+        return block;
+    }
+
+    public static class Deserializer extends JsonDeserializer<TextBlock> {
+        @Override
+        public TextBlock deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            return readFrom(parser);
+        }
+    }
+}
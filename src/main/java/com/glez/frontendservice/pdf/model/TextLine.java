@@ -0,0 +1,75 @@
+package com.glez.frontendservice.pdf.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import lombok.Data;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/** A line of a {@link TextBlock}; {@code y} is the baseline, as for {@link StyledText}. */
+@Data
+@JsonSerialize(using = ModelJson.Serializer.class)
+@JsonDeserialize(using = TextLine.Deserializer.class)
+public class TextLine implements ModelJson.Writable {
+
+    private float x;
+    private float y;
+    private float width;
+    private float height;
+    private List<TextWord> words = new ArrayList<>();
+
+    public TextLine copy() {
+        TextLine copy = new TextLine();
+        copy.setX(x);
+        copy.setY(y);
+        copy.setWidth(width);
+        copy.setHeight(height);
+        for (TextWord word : words) {
+            copy.getWords().add(word.copy());
+        }
+        return copy;
+    }
+
+    @Override
+    public void writeTo(JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("x", x);
+        generator.writeNumberField("y", y);
+        generator.writeNumberField("width", width);
+        generator.writeNumberField("height", height);
+        generator.writeArrayFieldStart("words");
+        for (TextWord word : words) {
+            word.writeTo(generator);
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    public static TextLine readFrom(JsonParser parser) throws IOException {
+        TextLine line = new TextLine();
+        ModelJson.readObject(parser, field -> {
+            switch (field) {
+                case "x" -> line.setX(ModelJson.floatValue(parser, 0f));
+                case "y" -> line.setY(ModelJson.floatValue(parser, 0f));
+                case "width" -> line.setWidth(ModelJson.floatValue(parser, 0f));
+                case "height" -> line.setHeight(ModelJson.floatValue(parser, 0f));
+                case "words" -> ModelJson.readArray(parser, TextWord::readFrom, line.getWords()::add);
+                default -> parser.skipChildren();
+            }
+        });
+        return line;
+    }
+
+    public static class Deserializer extends JsonDeserializer<TextLine> {
+        @Override
+        public TextLine deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            return readFrom(parser);
+        }
+    }
+}
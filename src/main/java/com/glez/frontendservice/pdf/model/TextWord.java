@@ -0,0 +1,65 @@
+package com.glez.frontendservice.pdf.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.IOException;
+
+/** A word of a {@link TextLine}; it shares the line's baseline and height. */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonSerialize(using = ModelJson.Serializer.class)
+@JsonDeserialize(using = TextWord.Deserializer.class)
+public class TextWord implements ModelJson.Writable {
+
+    private static final String KEY_TEXT = "text";
+    private static final String KEY_X = "x";
+    private static final String KEY_WIDTH = "width";
+
+    private String text;
+    private float x;
+    private float width;
+
+    public TextWord copy() {
+        return toBuilder().build();
+    }
+
+    @Override
+    public void writeTo(JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        ModelJson.writeString(generator, KEY_TEXT, text);
+        generator.writeNumberField(KEY_X, x);
+        generator.writeNumberField(KEY_WIDTH, width);
+        generator.writeEndObject();
+    }
+
+    public static TextWord readFrom(JsonParser parser) throws IOException {
+        TextWordBuilder builder = TextWord.builder();
+        ModelJson.readObject(parser, field -> {
+            switch (field) {
+                case KEY_TEXT -> builder.text(ModelJson.stringValue(parser));
+                case KEY_X -> builder.x(ModelJson.floatValue(parser, 0f));
+                case KEY_WIDTH -> builder.width(ModelJson.floatValue(parser, 0f));
+                default -> parser.skipChildren();
+            }
+        });
+        return builder.build();
+    }
+
+    public static class Deserializer extends JsonDeserializer<TextWord> {
+        @Override
+        public TextWord deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            return readFrom(parser);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.glez.frontendservice.pdf.util;
+
+/**
+ * Bold and italic classification of a font, computed once per font by {@link StyleUtils#styleOf}.
+ */
+public record FontStyle(boolean bold, boolean italic) {
+
+    public static final FontStyle REGULAR = new FontStyle(false, false);
+    public static final FontStyle BOLD = new FontStyle(true, false);
+    public static final FontStyle ITALIC = new FontStyle(false, true);
+    public static final FontStyle BOLD_ITALIC = new FontStyle(true, true);
+
+    public static FontStyle of(boolean bold, boolean italic) {
+        return bold ? (italic ? BOLD_ITALIC : BOLD) : (italic ? ITALIC : REGULAR);
+    }
+}
@@ -1,15 +1,31 @@
 package com.glez.frontendservice.pdf.util;
 
+import com.glez.frontendservice.config.PdfProperties;
 import com.glez.frontendservice.pdf.model.PDFMetadata;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.io.RandomAccessStreamCache.StreamCacheCreateFunction;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDDocumentInformation;
 
+import java.io.File;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.GregorianCalendar;
 
 public class PDFUtils {
 
+    /**
+     * Stream cache that keeps up to the configured amount of a document's streams on the heap and
+     * spills the rest to scratch files, so large documents do not have to fit in memory.
+     */
+    public static StreamCacheCreateFunction streamCache(PdfProperties.Memory memory) {
+        MemoryUsageSetting setting = MemoryUsageSetting.setupMixed(memory.getMaxMainMemoryBytes());
+        if (memory.getTempDirectory() != null) {
+            setting.setTempDir(new File(memory.getTempDirectory()));
+        }
+        return setting.streamCache;
+    }
+
     public static PDFMetadata extractMetadata(PDDocument document) {
         if (document == null) {
             throw new IllegalArgumentException("Input document cannot be null.");
@@ -1,28 +1,66 @@
 package com.glez.frontendservice.pdf.util;
 
+import com.glez.frontendservice.cache.ByteSizeLruCache;
 import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDFontDescriptor;
 
-import java.util.stream.Stream;
+import java.util.Locale;
 
 public class StyleUtils {
 
+    /** Bold weight in the font descriptor's /FontWeight scale. */
+    private static final float BOLD_WEIGHT = 600f;
+    private static final int MAX_CACHED_NAMES = 4096;
+
+    /** Name-based classification by font name; names repeat across documents, fonts do not. */
+    private static final ByteSizeLruCache<String, FontStyle> NAME_STYLES =
+            new ByteSizeLruCache<>(MAX_CACHED_NAMES, style -> 1);
+
     private StyleUtils() {
         throw new IllegalStateException("Utility class");
     }
 
     public static boolean isBold(PDFont font) {
-        if (font == null || font.getName() == null) {
-            return false;
-        }
-        String name = font.getName().toLowerCase();
-        return Stream.of("bold", "bld", "black").anyMatch(name::contains);
+        return styleOf(font).bold();
     }
 
     public static boolean isItalic(PDFont font) {
-        if (font == null || font.getName() == null) {
-            return false;
+        return styleOf(font).italic();
+    }
+
+    /**
+     * A font is bold or italic when either its descriptor (ForceBold, FontWeight, Italic,
+     * ItalicAngle) or its name says so. Many embedded fonts leave the descriptor's weight and flags
+     * unset, so neither source is enough on its own; the name is only skipped when the descriptor
+     * already says bold and italic. Callers that see the same {@code PDFont} many times should keep
+     * the result, as {@code StyleAwareTextStripper} does per document.
+     */
+    public static FontStyle styleOf(PDFont font) {
+        if (font == null) {
+            return FontStyle.REGULAR;
+        }
+        PDFontDescriptor descriptor = font.getFontDescriptor();
+        boolean bold = descriptor != null && (descriptor.isForceBold() || descriptor.getFontWeight() >= BOLD_WEIGHT);
+        boolean italic = descriptor != null && (descriptor.isItalic() || descriptor.getItalicAngle() != 0f);
+        if (bold && italic) {
+            return FontStyle.BOLD_ITALIC;
+        }
+        FontStyle byName = styleOfName(font.getName());
+        return FontStyle.of(bold || byName.bold(), italic || byName.italic());
+    }
+
+    private static FontStyle styleOfName(String fontName) {
+        if (fontName == null) {
+            return FontStyle.REGULAR;
+        }
+        FontStyle style = NAME_STYLES.get(fontName);
+        if (style == null) {
+            String name = fontName.toLowerCase(Locale.ROOT);
+            style = FontStyle.of(
+                    name.contains("bold") || name.contains("bld") || name.contains("black"),
+                    name.contains("italic") || name.contains("oblique"));
+            NAME_STYLES.put(fontName, style);
         }
-        String name = font.getName().toLowerCase();
-        return Stream.of("italic", "oblique").anyMatch(name::contains);
+        return style;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,78 @@
+package com.glez.frontendservice.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The inverted index of one document, flattened into primitive arrays: the sorted terms, and for
+ * each term a slice of the posting arrays holding the word position in the document, the page and
+ * the word box. Positions within a slice are ascending, which lets phrases be matched by binary
+ * search on the following terms.
+ */
+final class DocumentIndex {
+
+    private final String[] terms;
+    private final int[] termStarts;
+    private final int[] positions;
+    private final int[] pages;
+    private final float[] boxes;
+
+    DocumentIndex(String[] terms, int[] termStarts, int[] positions, int[] pages, float[] boxes) {
+        this.terms = terms;
+        this.termStarts = termStarts;
+        this.positions = positions;
+        this.pages = pages;
+        this.boxes = boxes;
+    }
+
+    /**
+     * Occurrences of the terms as consecutive words on one page, in document order, stopping after
+     * {@code limit} hits.
+     */
+    List<SearchHit> search(List<String> queryTerms, int limit) {
+        int[] termIds = new int[queryTerms.size()];
+        for (int i = 0; i < termIds.length; i++) {
+            termIds[i] = Arrays.binarySearch(terms, queryTerms.get(i));
+            if (termIds[i] < 0) {
+                return List.of();
+            }
+        }
+
+        List<SearchHit> hits = new ArrayList<>();
+        int[] matched = new int[termIds.length];
+        for (int first = termStarts[termIds[0]]; first < termStarts[termIds[0] + 1] && hits.size() < limit; first++) {
+            matched[0] = first;
+            if (matchesFollowingTerms(termIds, matched)) {
+                List<HighlightRect> rects = new ArrayList<>(matched.length);
+                for (int posting : matched) {
+                    rects.add(new HighlightRect(boxes[posting * 4], boxes[posting * 4 + 1],
+                            boxes[posting * 4 + 2], boxes[posting * 4 + 3]));
+                }
+                hits.add(new SearchHit(pages[first], rects));
+            }
+        }
+        return hits;
+    }
+
+    private boolean matchesFollowingTerms(int[] termIds, int[] matched) {
+        int first = matched[0];
+        for (int i = 1; i < termIds.length; i++) {
+            int posting = Arrays.binarySearch(positions, termStarts[termIds[i]], termStarts[termIds[i] + 1], positions[first] + i);
+            if (posting < 0 || pages[posting] != pages[first]) {
+                return false;
+            }
+            matched[i] = posting;
+        }
+        return true;
+    }
+
+    /** Rough retained size, for the index's memory budget. */
+    long estimateSize() {
+        long size = 96 + 4L * termStarts.length + 8L * positions.length + 4L * boxes.length;
+        for (String term : terms) {
+            size += 48 + 2L * term.length();
+        }
+        return size;
+    }
+}
@@ -0,0 +1,137 @@
+package com.glez.frontendservice.search;
+
+import com.glez.frontendservice.pdf.model.PDFPage;
+import com.glez.frontendservice.pdf.model.StyledText;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cuts pages into words as they are extracted and collects the postings of every term. Works on
+ * glyphs as well as on runs and lines: a word ends at any character that is not a letter or digit,
+ * at a change of baseline, and at a horizontal gap, so glyph-level text is joined into words and
+ * run-level text is split into them. Character boxes inside a run come from its glyph offsets
+ * when present and are interpolated otherwise.
+ */
+class DocumentIndexBuilder {
+
+    private static final float WORD_GAP_RATIO = 0.25f;
+
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final StringBuilder word = new StringBuilder();
+    private int position;
+    private int page;
+    private float wordMinX;
+    private float wordMaxX;
+    private float wordY;
+    private float wordHeight;
+
+    void addPage(PDFPage pdfPage) {
+        page = pdfPage.getPageNumber();
+        for (StyledText text : pdfPage.getTexts()) {
+            addText(text);
+        }
+        endWord();
+    }
+
+    DocumentIndex build() {
+        String[] terms = postings.keySet().toArray(new String[0]);
+        Arrays.sort(terms);
+
+        int total = 0;
+        for (Postings termPostings : postings.values()) {
+            total += termPostings.size;
+        }
+        int[] termStarts = new int[terms.length + 1];
+        int[] positions = new int[total];
+        int[] pages = new int[total];
+        float[] boxes = new float[total * 4];
+
+        int offset = 0;
+        for (int t = 0; t < terms.length; t++) {
+            Postings termPostings = postings.get(terms[t]);
+            termStarts[t] = offset;
+            System.arraycopy(termPostings.positions, 0, positions, offset, termPostings.size);
+            System.arraycopy(termPostings.pages, 0, pages, offset, termPostings.size);
+            System.arraycopy(termPostings.boxes, 0, boxes, offset * 4, termPostings.size * 4);
+            offset += termPostings.size;
+        }
+        termStarts[terms.length] = offset;
+        return new DocumentIndex(terms, termStarts, positions, pages, boxes);
+    }
+
+    private void addText(StyledText text) {
+        String value = text.getText();
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        if (!word.isEmpty() && (Math.abs(text.getY() - wordY) > Math.max(1f, text.getHeight() / 2)
+                || text.getX() - wordMaxX > Math.max(1f, text.getFontSize() * WORD_GAP_RATIO))) {
+            endWord();
+        }
+
+        int codePoints = value.codePointCount(0, value.length());
+        float[] offsets = text.getGlyphOffsets();
+        boolean hasOffsets = offsets != null && offsets.length == codePoints;
+        int index = 0;
+        for (int i = 0; i < value.length(); index++) {
+            int codePoint = value.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (!Terms.isTermChar(codePoint)) {
+                endWord();
+                continue;
+            }
+            float start = hasOffsets ? offsets[index] : text.getWidth() * index / codePoints;
+            float end = !hasOffsets ? text.getWidth() * (index + 1) / codePoints
+                    : index + 1 < codePoints ? offsets[index + 1] : text.getWidth();
+            appendChar(codePoint, text.getX() + start, text.getX() + end, text.getY(), text.getHeight());
+        }
+    }
+
+    private void appendChar(int codePoint, float minX, float maxX, float y, float height) {
+        if (word.isEmpty()) {
+            wordMinX = minX;
+            wordMaxX = maxX;
+            wordY = y;
+            wordHeight = height;
+        } else {
+            wordMinX = Math.min(wordMinX, minX);
+            wordMaxX = Math.max(wordMaxX, maxX);
+            wordHeight = Math.max(wordHeight, height);
+        }
+        word.appendCodePoint(codePoint);
+    }
+
+    private void endWord() {
+        if (word.isEmpty()) {
+            return;
+        }
+        postings.computeIfAbsent(Terms.normalize(word), term -> new Postings())
+                .add(position++, page, wordMinX, wordY, wordMaxX - wordMinX, wordHeight);
+        word.setLength(0);
+    }
+
+    /** Postings of one term while the document is being indexed, in growable primitive arrays. */
+    private static final class Postings {
+        private int[] positions = new int[4];
+        private int[] pages = new int[4];
+        private float[] boxes = new float[16];
+        private int size;
+
+        void add(int position, int page, float x, float y, float width, float height) {
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+                pages = Arrays.copyOf(pages, size * 2);
+                boxes = Arrays.copyOf(boxes, size * 8);
+            }
+            positions[size] = position;
+            pages[size] = page;
+            boxes[size * 4] = x;
+            boxes[size * 4 + 1] = y;
+            boxes[size * 4 + 2] = width;
+            boxes[size * 4 + 3] = height;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.glez.frontendservice.search;
+
+/**
+ * A word's box in the coordinates of {@code StyledText}: {@code y} is the baseline.
+ */
+public record HighlightRect(float x, float y, float width, float height) {
+}
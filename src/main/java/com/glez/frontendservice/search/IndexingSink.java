@@ -0,0 +1,48 @@
+package com.glez.frontendservice.search;
+
+import com.glez.frontendservice.pdf.converter.PdfContentSink;
+import com.glez.frontendservice.pdf.model.PDFMetadata;
+import com.glez.frontendservice.pdf.model.PDFPage;
+
+import java.io.IOException;
+
+/**
+ * Indexes pages on their way to another sink, so the index is built during extraction and streamed
+ * pages need not be kept for it. The index only becomes searchable on {@link #commit()}, once the
+ * extraction has completed.
+ */
+public class IndexingSink implements PdfContentSink {
+
+    private final SearchIndex searchIndex;
+    private final PdfContentSink delegate;
+    private final DocumentIndexBuilder builder = new DocumentIndexBuilder();
+    private String documentId;
+
+    IndexingSink(SearchIndex searchIndex, PdfContentSink delegate) {
+        this.searchIndex = searchIndex;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void documentId(String documentId) throws IOException {
+        this.documentId = documentId;
+        delegate.documentId(documentId);
+    }
+
+    @Override
+    public void metadata(PDFMetadata metadata) throws IOException {
+        delegate.metadata(metadata);
+    }
+
+    @Override
+    public void page(PDFPage page) throws IOException {
+        builder.addPage(page);
+        delegate.page(page);
+    }
+
+    public void commit() {
+        if (documentId != null) {
+            searchIndex.put(documentId, builder.build());
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.glez.frontendservice.search;
+
+import java.util.List;
+
+/** One occurrence of the query, with a rectangle per matched word. */
+public record SearchHit(int page, List<HighlightRect> rects) {
+}
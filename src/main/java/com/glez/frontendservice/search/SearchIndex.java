@@ -0,0 +1,90 @@
+package com.glez.frontendservice.search;
+
+import com.glez.frontendservice.cache.ByteSizeLruCache;
+import com.glez.frontendservice.cache.ByteSizeLruCacheMetrics;
+import com.glez.frontendservice.config.PdfProperties;
+import com.glez.frontendservice.pdf.converter.PdfContentSink;
+import com.glez.frontendservice.pdf.model.PDFDocument;
+import com.glez.frontendservice.pdf.model.PDFPage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * In-process full-text index over extracted documents, keyed by document id. Each document has its
+ * own compact index, so documents are evicted as a whole, least recently searched first, once the
+ * memory budget is reached.
+ */
+@Component
+public class SearchIndex implements MeterBinder {
+
+    private final boolean enabled;
+    private final int maxHits;
+    private final ByteSizeLruCache<String, DocumentIndex> documents;
+
+    public SearchIndex(PdfProperties pdfProperties) {
+        PdfProperties.Search properties = pdfProperties.getSearch();
+        this.enabled = properties.isEnabled();
+        this.maxHits = properties.getMaxHits();
+        this.documents = new ByteSizeLruCache<>(properties.getMaxMemoryBytes(), DocumentIndex::estimateSize);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        ByteSizeLruCacheMetrics.monitor(registry, documents, "search");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean contains(String documentId) {
+        return documents.containsKey(documentId);
+    }
+
+    public IndexingSink indexingSink(PdfContentSink delegate) {
+        return new IndexingSink(this, delegate);
+    }
+
+    /** Indexes a document that was extracted before, e.g. one served from the result cache. */
+    public void index(PDFDocument document) {
+        DocumentIndexBuilder builder = new DocumentIndexBuilder();
+        for (PDFPage page : document.getPages()) {
+            builder.addPage(page);
+        }
+        put(document.getId(), builder.build());
+    }
+
+    /**
+     * Finds the query, as a phrase when it has several words, in an indexed document. Empty when
+     * the document is not indexed.
+     */
+    public Optional<SearchResult> search(String documentId, String query, int limit) {
+        DocumentIndex index = documents.get(documentId);
+        if (index == null) {
+            return Optional.empty();
+        }
+        List<String> terms = Terms.of(query);
+        if (terms.isEmpty()) {
+            return Optional.of(new SearchResult(documentId, query, List.of(), false));
+        }
+        int effectiveLimit = Math.max(1, Math.min(limit, maxHits));
+        List<SearchHit> hits = index.search(terms, effectiveLimit + 1);
+        boolean truncated = hits.size() > effectiveLimit;
+        return Optional.of(new SearchResult(documentId, query,
+                truncated ? hits.subList(0, effectiveLimit) : hits, truncated));
+    }
+
+    public boolean evict(String documentId) {
+        return documents.remove(documentId) != null;
+    }
+
+    void put(String documentId, DocumentIndex index) {
+        if (enabled && documentId != null) {
+            documents.put(documentId, index);
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.glez.frontendservice.search;
+
+import java.util.List;
+
+public record SearchResult(String documentId, String query, List<SearchHit> hits, boolean truncated) {
+}
@@ -0,0 +1,41 @@
+package com.glez.frontendservice.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * How text is cut into terms, shared by indexing and queries: runs of letters and digits,
+ * lower-cased.
+ */
+final class Terms {
+
+    private Terms() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    static boolean isTermChar(int codePoint) {
+        return Character.isLetterOrDigit(codePoint);
+    }
+
+    static String normalize(CharSequence word) {
+        return word.toString().toLowerCase(Locale.ROOT);
+    }
+
+    static List<String> of(String text) {
+        List<String> terms = new ArrayList<>();
+        StringBuilder word = new StringBuilder();
+        text.codePoints().forEach(codePoint -> {
+            if (isTermChar(codePoint)) {
+                word.appendCodePoint(codePoint);
+            } else if (!word.isEmpty()) {
+                terms.add(normalize(word));
+                word.setLength(0);
+            }
+        });
+        if (!word.isEmpty()) {
+            terms.add(normalize(word));
+        }
+        return terms;
+    }
+}
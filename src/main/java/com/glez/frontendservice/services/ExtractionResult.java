@@ -0,0 +1,6 @@
+package com.glez.frontendservice.services;
+
+import com.glez.frontendservice.pdf.model.PDFDocument;
+
+public record ExtractionResult(PDFDocument document, boolean cacheHit) {
+}
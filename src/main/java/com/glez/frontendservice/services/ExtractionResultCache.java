@@ -0,0 +1,224 @@
+package com.glez.frontendservice.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.glez.frontendservice.cache.ByteSizeLruCache;
+import com.glez.frontendservice.cache.ByteSizeLruCacheMetrics;
+import com.glez.frontendservice.config.PdfProperties;
+import com.glez.frontendservice.pdf.converter.PageCache;
+import com.glez.frontendservice.pdf.model.PDFDocument;
+import com.glez.frontendservice.pdf.model.PDFPage;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Extraction results keyed by the SHA-256 of the uploaded bytes plus the extraction options. The
+ * in-memory tier is an LRU bounded by the estimated heap of the cached documents; the optional disk
+ * tier keeps the serialized documents under {@code upload-dir} and is consulted on memory misses;
+ * a periodic sweep keeps it within its own TTL and size limit, oldest entries first.
+ * Callers get their own copy of a cached document and may change it freely.
+ */
+@Component
+public class ExtractionResultCache implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExtractionResultCache.class);
+
+    private final PdfProperties.Cache properties;
+    private final ObjectMapper objectMapper;
+    private final ByteSizeLruCache<String, PDFDocument> memoryTier;
+    private final Path diskDirectory;
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong diskBytes = new AtomicLong();
+
+    public ExtractionResultCache(PdfProperties pdfProperties, ObjectMapper objectMapper) {
+        this.properties = pdfProperties.getCache();
+        this.objectMapper = objectMapper;
+        this.memoryTier = new ByteSizeLruCache<>(properties.getMaxMemoryBytes(), ExtractionResultCache::estimateSize);
+        this.diskDirectory = properties.getDisk().isEnabled() ? createDiskDirectory(properties.getDisk().getDirectory()) : null;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        ByteSizeLruCacheMetrics.monitor(registry, memoryTier, "extraction");
+        FunctionCounter.builder("cache.disk.hits", diskHits, AtomicLong::get)
+                .tag("cache", "extraction")
+                .description("Memory misses served from the disk tier").register(registry);
+        Gauge.builder("cache.disk.bytes", diskBytes, AtomicLong::get)
+                .tag("cache", "extraction").baseUnit("bytes")
+                .description("Bytes in the disk tier as of the last sweep").register(registry);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public PDFDocument get(String key) {
+        if (!properties.isEnabled()) {
+            return null;
+        }
+        PDFDocument document = memoryTier.get(key);
+        if (document == null && diskDirectory != null) {
+            document = readFromDisk(key);
+            if (document != null) {
+                diskHits.incrementAndGet();
+                memoryTier.put(key, document);
+            }
+        }
+        return document != null ? document.copy() : null;
+    }
+
+    public void put(String key, PDFDocument document) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        memoryTier.put(key, document.copy());
+        if (diskDirectory != null) {
+            writeToDisk(key, document);
+        }
+    }
+
+    public long getHits() {
+        return memoryTier.getHits() + diskHits.get();
+    }
+
+    public long getMisses() {
+        return memoryTier.getMisses() - diskHits.get();
+    }
+
+    public long getEvictions() {
+        return memoryTier.getEvictions();
+    }
+
+    public long getMemoryBytes() {
+        return memoryTier.getCurrentBytes();
+    }
+
+    /**
+     * Deletes disk entries not used within the TTL, then the least recently used ones until the tier
+     * fits its size limit. Reads refresh an entry's modification time, which is what the sweep goes by.
+     */
+    @Scheduled(fixedDelayString = "${pdf.cache.disk.sweep-interval:1m}")
+    public void sweepDisk() {
+        if (diskDirectory == null) {
+            return;
+        }
+        PdfProperties.Disk disk = properties.getDisk();
+        List<DiskEntry> diskEntries = new ArrayList<>();
+        long total = 0;
+        try (Stream<Path> files = Files.list(diskDirectory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (!file.getFileName().toString().endsWith(".json")) {
+                    continue;
+                }
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                diskEntries.add(new DiskEntry(file, attributes.size(), attributes.lastModifiedTime().toMillis()));
+                total += attributes.size();
+            }
+        } catch (IOException e) {
+            logger.warn("Could not list the extraction cache directory {}: {}", diskDirectory, e.getMessage());
+            return;
+        }
+        diskEntries.sort(Comparator.comparingLong(DiskEntry::lastModified));
+
+        long expiredBefore = disk.getTtl().isPositive() ? System.currentTimeMillis() - disk.getTtl().toMillis() : Long.MIN_VALUE;
+        int deleted = 0;
+        for (DiskEntry entry : diskEntries) {
+            if (entry.lastModified() >= expiredBefore && (disk.getMaxBytes() <= 0 || total <= disk.getMaxBytes())) {
+                break;
+            }
+            try {
+                Files.deleteIfExists(entry.file());
+                total -= entry.size();
+                deleted++;
+            } catch (IOException e) {
+                logger.warn("Could not delete cache entry {}: {}", entry.file(), e.getMessage());
+            }
+        }
+        diskBytes.set(total);
+        if (deleted > 0) {
+            logger.info("Deleted {} extraction cache entries from disk, {} bytes remain", deleted, total);
+        }
+    }
+
+    private PDFDocument readFromDisk(String key) {
+        Path file = diskDirectory.resolve(key + ".json");
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            PDFDocument document = objectMapper.readValue(file.toFile(), PDFDocument.class);
+            touch(file);
+            return document;
+        } catch (IOException e) {
+            logger.warn("Discarding unreadable cache entry {}: {}", file, e.getMessage());
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ignored) {
+                // Left for the next write of the same key to replace.
+            }
+            return null;
+        }
+    }
+
+    private static void touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException ignored) {
+            // Only makes the entry look older to the sweep.
+        }
+    }
+
+    private void writeToDisk(String key, PDFDocument document) {
+        Path target = diskDirectory.resolve(key + ".json");
+        try {
+            Path temp = Files.createTempFile(diskDirectory, key, ".tmp");
+            objectMapper.writeValue(temp.toFile(), document);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Could not write cache entry {}: {}", target, e.getMessage());
+        }
+    }
+
+    private static Path createDiskDirectory(String directory) {
+        Path path = Paths.get(directory).toAbsolutePath().normalize();
+        try {
+            Files.createDirectories(path);
+            logger.info("Extraction cache directory initialized at: {}", path);
+            return path;
+        } catch (IOException ex) {
+            throw new RuntimeException("Failed to create extraction cache directory: " + path, ex);
+        }
+    }
+
+    private record DiskEntry(Path file, long size, long lastModified) {
+    }
+
+    /**
+     * Rough retained size of a document model, good enough to keep the cache within its budget.
+     */
+    static long estimateSize(PDFDocument document) {
+        long size = 256;
+        for (PDFPage page : document.getPages()) {
+            size += PageCache.estimateSize(page);
+        }
+        return size;
+    }
+}
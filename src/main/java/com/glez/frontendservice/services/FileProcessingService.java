@@ -1,20 +1,31 @@
 package com.glez.frontendservice.services;
 
+import com.glez.frontendservice.metrics.PdfMetrics;
+import com.glez.frontendservice.util.Hashing;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
-import java.util.UUID;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 @Service
 public class FileProcessingService implements FileService {
@@ -22,7 +33,14 @@ public class FileProcessingService implements FileService {
     private static final Logger logger = LoggerFactory.getLogger(FileProcessingService.class);
 
     private static final String UPLOAD_DIR_NAME = "upload-dir";
+    private static final String STAGING_DIR_NAME = "staging";
+    private static final long MAP_CHUNK_BYTES = 64L * 1024 * 1024;
+    private static final Pattern LEGACY_FILE_NAME =
+            Pattern.compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}(\\.[^.]+)?");
     private final Path fileStorageLocation;
+    private final Path stagingLocation;
+    private final StorageManager storageManager;
+    private final PdfMetrics metrics;
 
     private static final Set<String> SUPPORTED_IMAGE_TYPES = Set.of(
             "image/png",
@@ -30,10 +48,15 @@ public class FileProcessingService implements FileService {
             "image/gif"
     );
 
-    public FileProcessingService() {
+    public FileProcessingService(StorageManager storageManager, PdfMetrics metrics) {
+        this.storageManager = storageManager;
+        this.metrics = metrics;
         this.fileStorageLocation = Paths.get(UPLOAD_DIR_NAME).toAbsolutePath().normalize();
+        this.stagingLocation = this.fileStorageLocation.resolve(STAGING_DIR_NAME);
         try {
-            Files.createDirectories(this.fileStorageLocation);
+            Files.createDirectories(this.stagingLocation);
+            removeStagedFiles();
+            migrateLegacyFiles();
             logger.info("Storage directory initialized at: {}", this.fileStorageLocation);
         } catch (IOException ex) {
             logger.error("Could not create the upload directory: {}. Service might not function correctly.", this.fileStorageLocation, ex);
@@ -59,10 +82,9 @@ public class FileProcessingService implements FileService {
 
         logger.info("Processing file: Name='{}', Type='{}', Size='{} bytes'", originalFileName, contentType, size);
 
-        byte[] fileBytes;
         try (InputStream inputStream = file.getInputStream()) {
-            fileBytes = inputStream.readAllBytes();
-            logger.info("Successfully read {} bytes from file '{}'.", fileBytes.length, originalFileName);
+            long bytesRead = inputStream.transferTo(OutputStream.nullOutputStream());
+            logger.info("Successfully read {} bytes from file '{}'.", bytesRead, originalFileName);
         } catch (IOException e) {
             logger.error("Error reading content from file: {}", originalFileName, e);
             throw new IOException(String.format("Error reading content from file: %s", originalFileName), e);
@@ -71,22 +93,59 @@ public class FileProcessingService implements FileService {
         return String.format("File '%s' (Size: %d bytes) processed. Content read successfully.", originalFileName, size);
     }
 
+    /**
+     * Stores the upload under the SHA-256 of its content, in {@code <store>/ab/cd/<sha256>} so that
+     * no directory grows beyond a few entries per 65536 files. Uploading the same content again
+     * returns the stored file. The upload is moved into place rather than copied; see
+     * {@link #receive}. Stored files expire as configured for the {@link StorageManager}.
+     */
     @Override
-    public Path storeFile(MultipartFile file) throws IOException {
-        String originalFileName = StringUtils.cleanPath(Objects.requireNonNull(file.getOriginalFilename()));
-        String extension = StringUtils.getFilenameExtension(originalFileName);
-        String uniqueFileName = UUID.randomUUID().toString() + (extension != null && !extension.isEmpty() ? "." + extension : "");
+    public StoredFile storeFile(MultipartFile file) throws IOException {
+        Path received = receive(file, "store-");
+        try {
+            StoredFile storedFile = storageManager.store(sha256(received), received, Files.size(received));
+            if (storedFile.deduplicated()) {
+                logger.info("File {} is already stored, keeping the existing copy", storedFile.id());
+            } else {
+                logger.info("File stored successfully at: {}", storedFile.path());
+            }
+            return storedFile;
+        } catch (IOException ex) {
+            logger.error("Could not store file {}: {}", file.getOriginalFilename(), ex.getMessage(), ex);
+            throw new IOException(String.format("Could not store file %s", file.getOriginalFilename()), ex);
+        } finally {
+            Files.deleteIfExists(received);
+        }
+    }
+
+    @Override
+    public Optional<StoredFile> findStoredFile(String fileId) {
+        return storageManager.find(fileId);
+    }
 
-        Path targetLocation = this.fileStorageLocation.resolve(uniqueFileName);
+    @Override
+    public Optional<StorageManager.Lease> acquireStoredFile(String fileId) {
+        return storageManager.acquire(fileId);
+    }
 
-        try (InputStream inputStream = file.getInputStream()) {
-            Files.copy(inputStream, targetLocation, StandardCopyOption.REPLACE_EXISTING);
-            logger.info("File stored successfully at: {}", targetLocation);
-            return targetLocation;
+    /**
+     * Moves the upload to a temporary file under {@code upload-dir/staging} and hashes it from
+     * there, so that it can be processed from disk instead of from a heap copy. The multipart temp
+     * file is only valid for the duration of the request; the staged copy lives until it is closed.
+     */
+    @Override
+    public StagedFile stageFile(MultipartFile file) throws IOException {
+        Timer.Sample sample = metrics.start();
+        Path stagedPath = receive(file, "upload-");
+        try {
+            long size = Files.size(stagedPath);
+            String sha256 = sha256(stagedPath);
+            metrics.uploadStaged(sample, size);
+            return new StagedFile(stagedPath, size, sha256);
         } catch (IOException ex) {
-            logger.error("Could not store file {} at {}. Original filename: {}. Error: {}",
-                    uniqueFileName, targetLocation, originalFileName, ex.getMessage(), ex);
-            throw new IOException(String.format("Could not store file %s (original: %s)", uniqueFileName, originalFileName), ex);
+            Files.deleteIfExists(stagedPath);
+            logger.error("Could not stage upload {}: {}", file.getOriginalFilename(), ex.getMessage(), ex);
+            throw new IOException(String.format("Could not stage upload %s", file.getOriginalFilename()), ex);
         }
     }
 
@@ -95,4 +154,65 @@ public class FileProcessingService implements FileService {
         String contentType = file.getContentType();
         return contentType != null && SUPPORTED_IMAGE_TYPES.contains(contentType);
     }
+
+    /**
+     * Takes over the upload with {@link MultipartFile#transferTo(File)}, which for servlet uploads
+     * renames the container's temp file when it is on the same file system and copies it otherwise;
+     * either way the bytes do not pass through the heap. The upload cannot be read again afterwards.
+     */
+    private Path receive(MultipartFile file, String prefix) throws IOException {
+        Path target = Files.createTempFile(this.stagingLocation, prefix, ".tmp");
+        try {
+            file.transferTo(target.toFile());
+            return target;
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(target);
+            throw ex;
+        }
+    }
+
+    /** Staged files are deleted when they are closed, so any found at startup were left by a crash. */
+    private void removeStagedFiles() throws IOException {
+        try (Stream<Path> staged = Files.list(this.stagingLocation)) {
+            for (Path path : (Iterable<Path>) staged::iterator) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    /**
+     * Files were once stored directly under {@code upload-dir} with random names. They are moved into
+     * the store under their hash, keeping their modification time as the last access, so that the
+     * TTL and quota apply to them as well.
+     */
+    private void migrateLegacyFiles() throws IOException {
+        List<Path> legacyFiles;
+        try (Stream<Path> files = Files.list(this.fileStorageLocation)) {
+            legacyFiles = files.filter(path -> Files.isRegularFile(path)
+                    && LEGACY_FILE_NAME.matcher(path.getFileName().toString()).matches()).toList();
+        }
+        for (Path legacyFile : legacyFiles) {
+            try {
+                long lastModified = Files.getLastModifiedTime(legacyFile).toMillis();
+                StoredFile storedFile = storageManager.store(sha256(legacyFile), legacyFile, Files.size(legacyFile), lastModified);
+                // Still there when the same content was already stored.
+                Files.deleteIfExists(legacyFile);
+                logger.info("Moved legacy upload {} into the store as {}", legacyFile.getFileName(), storedFile.id());
+            } catch (IOException ex) {
+                logger.warn("Could not move legacy upload {} into the store: {}", legacyFile, ex.getMessage());
+            }
+        }
+    }
+
+    /** Hashes the file through memory-mapped chunks, so the content is never copied into the heap. */
+    private static String sha256(Path file) throws IOException {
+        MessageDigest digest = Hashing.sha256();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long position = 0; position < size; position += MAP_CHUNK_BYTES) {
+                digest.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAP_CHUNK_BYTES, size - position)));
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
 }
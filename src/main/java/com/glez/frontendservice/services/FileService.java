@@ -0,0 +1,21 @@
+package com.glez.frontendservice.services;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.util.Optional;
+
+public interface FileService {
+
+    String processFile(MultipartFile file) throws IOException;
+
+    StoredFile storeFile(MultipartFile file) throws IOException;
+
+    Optional<StoredFile> findStoredFile(String fileId);
+
+    Optional<StorageManager.Lease> acquireStoredFile(String fileId);
+
+    StagedFile stageFile(MultipartFile file) throws IOException;
+
+    boolean isValidImageType(MultipartFile file);
+}
@@ -0,0 +1,10 @@
+package com.glez.frontendservice.services;
+
+public class JobQueueFullException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public JobQueueFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,65 @@
+package com.glez.frontendservice.services;
+
+import com.glez.frontendservice.pdf.model.PDFDocument;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * State of an asynchronous extraction. Fields are written by the worker running the job and read
+ * by status requests, hence volatile.
+ */
+@Getter
+public class PdfJob {
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    private final String id;
+    private final Instant createdAt = Instant.now();
+    private final AtomicInteger pagesDone = new AtomicInteger();
+    private volatile Status status = Status.QUEUED;
+    private volatile int totalPages;
+    private volatile Instant completedAt;
+    private volatile String error;
+    private volatile PDFDocument result;
+
+    PdfJob(String id) {
+        this.id = id;
+    }
+
+    void started() {
+        status = Status.RUNNING;
+    }
+
+    void totalPages(int totalPages) {
+        this.totalPages = totalPages;
+    }
+
+    void pageDone() {
+        pagesDone.incrementAndGet();
+    }
+
+    void completed(PDFDocument result) {
+        this.result = result;
+        this.pagesDone.set(result.getPages().size());
+        this.completedAt = Instant.now();
+        this.status = Status.COMPLETED;
+    }
+
+    void failed(String error) {
+        this.error = error;
+        this.completedAt = Instant.now();
+        this.status = Status.FAILED;
+    }
+
+    public int getPagesDone() {
+        return pagesDone.get();
+    }
+
+    boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+}
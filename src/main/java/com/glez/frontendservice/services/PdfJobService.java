@@ -0,0 +1,146 @@
+package com.glez.frontendservice.services;
+
+import com.glez.frontendservice.cache.ByteSizeLruCache;
+import com.glez.frontendservice.config.PdfProperties;
+import com.glez.frontendservice.pdf.converter.ExtractionOptions;
+import com.glez.frontendservice.pdf.converter.PdfContentSink;
+import com.glez.frontendservice.pdf.model.PDFDocument;
+import com.glez.frontendservice.pdf.model.PDFMetadata;
+import com.glez.frontendservice.pdf.model.PDFPage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs extractions in the background so that large uploads do not hold a request thread. Jobs run
+ * on a fixed pool with a bounded queue; once the queue is full new jobs are rejected instead of
+ * piling up. Finished jobs are kept for the configured TTL and then dropped. Completed jobs also
+ * count against a budget for the estimated size of their results, and the least recently fetched
+ * ones are dropped early when newer results need the room.
+ */
+@Service
+public class PdfJobService implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(PdfJobService.class);
+
+    private final PdfProcessingService pdfProcessingService;
+    private final Duration resultTtl;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, PdfJob> jobs = new ConcurrentHashMap<>();
+    /** Completed jobs weighed by their results; a job evicted from here is dropped altogether. */
+    private final ByteSizeLruCache<String, PdfJob> completedJobs;
+
+    public PdfJobService(PdfProcessingService pdfProcessingService, PdfProperties pdfProperties) {
+        PdfProperties.Jobs properties = pdfProperties.getJobs();
+        this.pdfProcessingService = pdfProcessingService;
+        this.resultTtl = properties.getResultTtl();
+        this.completedJobs = new ByteSizeLruCache<>(properties.getMaxResultBytes(),
+                job -> ExtractionResultCache.estimateSize(job.getResult()), (id, job) -> jobs.remove(id));
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                properties.getWorkers(), properties.getWorkers(),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                runnable -> new Thread(runnable, "pdf-job-" + threadCount.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Queues the extraction of a staged upload. The job owns the staged file from here on and
+     * deletes it once it has run or been rejected.
+     */
+    public PdfJob submit(StagedFile upload, ExtractionOptions options) {
+        PdfJob job = new PdfJob(UUID.randomUUID().toString());
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> run(job, upload, options));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            deleteUpload(upload);
+            throw new JobQueueFullException("Too many PDF jobs are queued, try again later.");
+        }
+        return job;
+    }
+
+    public Optional<PdfJob> getJob(String id) {
+        PdfJob job = jobs.get(id);
+        if (job != null && job.getStatus() == PdfJob.Status.COMPLETED) {
+            // Marks the result as recently fetched, so that results nobody polls are dropped first.
+            completedJobs.get(id);
+        }
+        return Optional.ofNullable(job);
+    }
+
+    private void run(PdfJob job, StagedFile upload, ExtractionOptions options) {
+        job.started();
+        try {
+            ExtractionResult result = pdfProcessingService.extractContent(upload, options, new PdfContentSink() {
+                @Override
+                public void metadata(PDFMetadata metadata) {
+                    // With a page list the total is only known once the pages have been counted.
+                    if (metadata != null && options.getPages() == null) {
+                        job.totalPages(metadata.getTotalPages());
+                    }
+                }
+
+                @Override
+                public void page(PDFPage page) {
+                    job.pageDone();
+                }
+            });
+            PDFDocument document = result.document();
+            if (ExtractionResultCache.estimateSize(document) > completedJobs.getMaxBytes()) {
+                job.failed("The result is too large to keep, extract the document with the streaming endpoint instead.");
+                return;
+            }
+            job.totalPages(document.getPages().size());
+            job.completed(document);
+            completedJobs.put(job.getId(), job);
+        } catch (Exception e) {
+            logger.error("PDF job {} failed: {}", job.getId(), e.getMessage(), e);
+            job.failed(e.getMessage());
+        } finally {
+            deleteUpload(upload);
+        }
+    }
+
+    private static void deleteUpload(StagedFile upload) {
+        try {
+            upload.close();
+        } catch (IOException e) {
+            logger.warn("Could not delete staged upload {}: {}", upload.path(), e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${pdf.jobs.cleanup-interval:1m}")
+    public void removeExpiredJobs() {
+        Instant expiredBefore = Instant.now().minus(resultTtl);
+        for (PdfJob job : jobs.values()) {
+            if (job.isFinished() && job.getCompletedAt().isBefore(expiredBefore)) {
+                jobs.remove(job.getId());
+                completedJobs.remove(job.getId());
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,180 @@
+package com.glez.frontendservice.services;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.glez.frontendservice.pdf.converter.ContentPart;
+import com.glez.frontendservice.pdf.converter.DocumentCollector;
+import com.glez.frontendservice.pdf.converter.ExtractionOptions;
+import com.glez.frontendservice.pdf.converter.ImageTransport;
+import com.glez.frontendservice.pdf.converter.JsonToPDFConverter;
+import com.glez.frontendservice.pdf.converter.PDFToJsonConverter;
+import com.glez.frontendservice.pdf.converter.PdfContentSink;
+import com.glez.frontendservice.pdf.image.ImageStore;
+import com.glez.frontendservice.pdf.image.StoredImage;
+import com.glez.frontendservice.pdf.model.PDFDocument;
+import com.glez.frontendservice.pdf.model.PDFImage;
+import com.glez.frontendservice.search.IndexingSink;
+import com.glez.frontendservice.search.SearchIndex;
+import com.glez.frontendservice.search.SearchResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+@Service
+public class PdfProcessingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PdfProcessingService.class);
+
+    private final PDFToJsonConverter pdfToJsonConverter;
+    private final JsonToPDFConverter jsonToPdfConverter;
+    private final ExtractionResultCache extractionResultCache;
+    private final ImageStore imageStore;
+    private final FileService fileService;
+    private final SearchIndex searchIndex;
+
+    public PdfProcessingService(PDFToJsonConverter pdfToJsonConverter, JsonToPDFConverter jsonToPdfConverter,
+                                ExtractionResultCache extractionResultCache, ImageStore imageStore,
+                                FileService fileService, SearchIndex searchIndex) {
+        this.pdfToJsonConverter = pdfToJsonConverter;
+        this.jsonToPdfConverter = jsonToPdfConverter;
+        this.extractionResultCache = extractionResultCache;
+        this.imageStore = imageStore;
+        this.fileService = fileService;
+        this.searchIndex = searchIndex;
+    }
+
+    public PDFDocument extractContentFromPdf(MultipartFile pdfFile) throws IOException {
+        return extractContentFromPdf(pdfFile, ExtractionOptions.defaults()).document();
+    }
+
+    public ExtractionResult extractContentFromPdf(MultipartFile pdfFile, ExtractionOptions options) throws IOException {
+        try (StagedFile upload = stageUpload(pdfFile)) {
+            return extractContent(upload, options, null);
+        }
+    }
+
+    /**
+     * Extracts an already staged upload, reporting metadata and every extracted page to the optional
+     * progress listener. Cache hits are returned without calling the listener.
+     */
+    public ExtractionResult extractContent(StagedFile upload, ExtractionOptions options, PdfContentSink progressListener) throws IOException {
+        return extractContent(upload.path(), upload.sha256(), options, progressListener);
+    }
+
+    /**
+     * Extracts a file stored earlier with {@link #storeFile}, so that it does not have to be uploaded
+     * again. Empty when there is no stored file with that id.
+     */
+    public Optional<ExtractionResult> extractStoredContent(String fileId, ExtractionOptions options) throws IOException {
+        Optional<StorageManager.Lease> lease = fileService.acquireStoredFile(fileId);
+        if (lease.isEmpty()) {
+            return Optional.empty();
+        }
+        // Pinned until extraction is done, so that a sweep cannot delete the file under the parser.
+        try (StorageManager.Lease storedFile = lease.get()) {
+            return Optional.of(extractContent(storedFile.file().path(), storedFile.file().id(), options, null));
+        }
+    }
+
+    public StoredFile storeFile(MultipartFile file) throws IOException {
+        return fileService.storeFile(file);
+    }
+
+    private ExtractionResult extractContent(Path file, String sha256, ExtractionOptions options, PdfContentSink progressListener) throws IOException {
+        ExtractionOptions documentOptions = options.toBuilder().documentId(sha256).build();
+        String cacheKey = sha256 + "-" + options.cacheKey();
+
+        PDFDocument cached = extractionResultCache.get(cacheKey);
+        if (cached != null && imagesAvailable(cached, documentOptions)) {
+            logger.debug("Extraction cache hit for {}", cacheKey);
+            if (indexable(options) && !searchIndex.contains(sha256)) {
+                searchIndex.index(cached);
+            }
+            return new ExtractionResult(cached, true);
+        }
+
+        DocumentCollector collector = new DocumentCollector(progressListener);
+        extract(file, documentOptions, collector);
+        PDFDocument pdfDocument = collector.getDocument();
+        extractionResultCache.put(cacheKey, pdfDocument);
+        return new ExtractionResult(pdfDocument, false);
+    }
+
+    public void streamContentFromPdf(MultipartFile pdfFile, ExtractionOptions options, PdfContentSink sink) throws IOException {
+        try (StagedFile upload = stageUpload(pdfFile)) {
+            extract(upload.path(), options.toBuilder().documentId(upload.sha256()).build(), sink);
+        }
+    }
+
+    public Optional<SearchResult> search(String documentId, String query, int limit) {
+        return searchIndex.search(documentId, query, limit);
+    }
+
+    public boolean evictSearchIndex(String documentId) {
+        return searchIndex.evict(documentId);
+    }
+
+    public Optional<StoredImage> getImage(String documentId, String imageId) {
+        return imageStore.get(documentId, imageId);
+    }
+
+    public void convertJsonToPdf(PDFDocument pdfDocument, OutputStream outputStream) throws IOException {
+        jsonToPdfConverter.convertJsonToPdf(pdfDocument, outputStream);
+    }
+
+    public void convertJsonToPdf(JsonParser documentParser, OutputStream outputStream) throws IOException {
+        jsonToPdfConverter.convertJsonToPdf(documentParser, outputStream);
+    }
+
+    /**
+     * Copies the upload to a staged file, computing its SHA-256 on the way; the hash identifies the
+     * document for the result cache and for images sent by reference. The caller closes the staged
+     * file once it is done with it.
+     */
+    public StagedFile stageUpload(MultipartFile pdfFile) throws IOException {
+        return fileService.stageFile(pdfFile);
+    }
+
+    /**
+     * Extracts into the sink, indexing the text on the way when the extraction covers the whole
+     * document.
+     */
+    private void extract(Path file, ExtractionOptions documentOptions, PdfContentSink sink) throws IOException {
+        if (!indexable(documentOptions)) {
+            pdfToJsonConverter.extractPDFContent(file, documentOptions, sink);
+            return;
+        }
+        IndexingSink indexingSink = searchIndex.indexingSink(sink);
+        pdfToJsonConverter.extractPDFContent(file, documentOptions, indexingSink);
+        indexingSink.commit();
+    }
+
+    /** Only extractions with the text of every page are indexed, so an index is never partial. */
+    private boolean indexable(ExtractionOptions options) {
+        return searchIndex.isEnabled() && options.getPages() == null && options.includes(ContentPart.TEXT);
+    }
+
+    /**
+     * A cached document whose images are sent by reference is only usable while the image store
+     * still holds those images.
+     */
+    private boolean imagesAvailable(PDFDocument document, ExtractionOptions options) {
+        if (options.getImageTransport() != ImageTransport.REFERENCE) {
+            return true;
+        }
+        List<String> imageIds = document.getPages().stream()
+                .flatMap(page -> page.getImages().stream())
+                .map(PDFImage::getId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        return imageStore.containsAll(options.getDocumentId(), imageIds);
+    }
+}
@@ -0,0 +1,135 @@
+package com.glez.frontendservice.services;
+
+import com.glez.frontendservice.cache.ByteSizeLruCache;
+import com.glez.frontendservice.cache.ByteSizeLruCacheMetrics;
+import com.glez.frontendservice.config.PdfProperties;
+import com.glez.frontendservice.pdf.image.PageRenderer;
+import com.glez.frontendservice.pdf.image.StoredImage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Page previews. Rendering is CPU- and memory-heavy, so it runs on its own small pool with a
+ * bounded queue instead of on request threads; rendered pages are cached by document hash, page,
+ * DPI and format, so scrolling back over a document does not render pages again.
+ */
+@Service
+public class PdfRenderService implements DisposableBean, MeterBinder {
+
+    private static final Set<String> FORMATS = Set.of("png", "jpg", "jpeg");
+    private static final float MIN_DPI = 18f;
+
+    private final FileService fileService;
+    private final PageRenderer pageRenderer;
+    private final ByteSizeLruCache<String, StoredImage> renderedPages;
+    private final float maxDpi;
+    private final ThreadPoolExecutor executor;
+
+    public PdfRenderService(FileService fileService, PageRenderer pageRenderer, PdfProperties pdfProperties) {
+        PdfProperties.Render properties = pdfProperties.getRender();
+        this.fileService = fileService;
+        this.pageRenderer = pageRenderer;
+        this.renderedPages = new ByteSizeLruCache<>(properties.getCacheMaxBytes(), image -> 64L + image.data().length);
+        this.maxDpi = properties.getMaxDpi();
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                properties.getThreads(), properties.getThreads(),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                runnable -> new Thread(runnable, "pdf-render-" + threadCount.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        ByteSizeLruCacheMetrics.monitor(registry, renderedPages, "renders");
+    }
+
+    /**
+     * Renders a page of the uploaded PDF, or returns it from the cache. Invalid pages, DPI values
+     * and formats are rejected with an {@link IllegalArgumentException}.
+     */
+    public RenderResult render(MultipartFile pdfFile, int pageNumber, float dpi, String format) throws IOException {
+        String imageFormat = validate(dpi, format);
+        try (StagedFile upload = fileService.stageFile(pdfFile)) {
+            String key = cacheKey(upload.sha256(), pageNumber, dpi, imageFormat);
+            StoredImage cached = renderedPages.get(key);
+            if (cached != null) {
+                return new RenderResult(upload.sha256(), cached, true);
+            }
+
+            StoredImage rendered = await(submit(upload, pageNumber, dpi, imageFormat));
+            renderedPages.put(key, rendered);
+            return new RenderResult(upload.sha256(), rendered, false);
+        }
+    }
+
+    /** A page rendered before, without uploading the document again. */
+    public Optional<StoredImage> getRendered(String documentId, int pageNumber, float dpi, String format) {
+        String imageFormat = validate(dpi, format);
+        return Optional.ofNullable(renderedPages.get(cacheKey(documentId, pageNumber, dpi, imageFormat)));
+    }
+
+    private Future<StoredImage> submit(StagedFile upload, int pageNumber, float dpi, String format) {
+        try {
+            return executor.submit(() -> pageRenderer.render(upload.path(), pageNumber, dpi, format));
+        } catch (RejectedExecutionException e) {
+            throw new RenderQueueFullException("Too many pages are waiting to be rendered, try again later.");
+        }
+    }
+
+    private static StoredImage await(Future<StoredImage> rendering) throws IOException {
+        try {
+            return rendering.get();
+        } catch (InterruptedException e) {
+            rendering.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while rendering.");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException("Rendering failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private String validate(float dpi, String format) {
+        if (dpi < MIN_DPI || dpi > maxDpi) {
+            throw new IllegalArgumentException(String.format("DPI must be between %.0f and %.0f.", MIN_DPI, maxDpi));
+        }
+        String imageFormat = format == null ? "" : format.trim().toLowerCase(Locale.ROOT);
+        if (!FORMATS.contains(imageFormat)) {
+            throw new IllegalArgumentException("Unsupported image format: " + format);
+        }
+        return imageFormat.equals("jpeg") ? "jpg" : imageFormat;
+    }
+
+    private static String cacheKey(String documentId, int pageNumber, float dpi, String format) {
+        return documentId + ":" + pageNumber + ":" + dpi + ":" + format;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,10 @@
+package com.glez.frontendservice.services;
+
+public class RenderQueueFullException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public RenderQueueFullException(String message) {
+        super(message);
+    }
+}
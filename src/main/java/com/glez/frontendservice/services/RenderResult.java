@@ -0,0 +1,6 @@
+package com.glez.frontendservice.services;
+
+import com.glez.frontendservice.pdf.image.StoredImage;
+
+public record RenderResult(String documentId, StoredImage image, boolean cacheHit) {
+}
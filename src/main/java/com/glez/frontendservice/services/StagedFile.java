@@ -0,0 +1,17 @@
+package com.glez.frontendservice.services;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * An upload copied to a temporary file, together with the SHA-256 computed while copying it. The
+ * hash is used as the document id; closing the staged file deletes it.
+ */
+public record StagedFile(Path path, long size, String sha256) implements AutoCloseable {
+
+    @Override
+    public void close() throws IOException {
+        Files.deleteIfExists(path);
+    }
+}
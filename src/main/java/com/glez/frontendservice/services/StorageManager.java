@@ -0,0 +1,394 @@
+package com.glez.frontendservice.services;
+
+import com.glez.frontendservice.config.PdfProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Owns the content-addressed file store. Stored files are kept in an in-memory index of their size
+ * and last access, rebuilt from a scan of the store at startup. Last access is written back to the
+ * file's modification time, at most once a minute per file, so that it survives a restart. A
+ * background sweep deletes files
+ * not accessed within the TTL and then the least recently used ones until the store fits its quota.
+ * Files are pinned while they are being read and are never deleted then. Storing and deleting the
+ * same file are serialized by a lock per file id, held outside the index so that file I/O never
+ * blocks lookups; nothing else waits for a sweep.
+ */
+@Component
+public class StorageManager implements MeterBinder, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(StorageManager.class);
+    private static final Pattern FILE_ID = Pattern.compile("[0-9a-f]{64}");
+    private static final int LOCK_STRIPES = 64;
+    private static final long PERSIST_ACCESS_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final Path root;
+    private final Duration ttl;
+    private final long maxBytes;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong storedBytes = new AtomicLong();
+    private final ReentrantLock sweepLock = new ReentrantLock();
+    private final ReentrantLock[] fileLocks = new ReentrantLock[LOCK_STRIPES];
+    private final ThreadPoolExecutor sweeper;
+
+    private final AtomicLong expiredEvictions = new AtomicLong();
+    private final AtomicLong quotaEvictions = new AtomicLong();
+    private final AtomicLong evictedBytes = new AtomicLong();
+
+    public StorageManager(PdfProperties pdfProperties) {
+        PdfProperties.Storage properties = pdfProperties.getStorage();
+        this.root = Paths.get(properties.getDirectory()).toAbsolutePath().normalize();
+        this.ttl = properties.getTtl();
+        this.maxBytes = properties.getMaxBytes();
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            fileLocks[i] = new ReentrantLock();
+        }
+        // One sweep running and one waiting are enough, however many stores push the store over its quota.
+        this.sweeper = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "storage-sweeper");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.DiscardPolicy());
+
+        try {
+            Files.createDirectories(root);
+            scan();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to initialize file store: " + root, ex);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("pdf.storage.bytes", storedBytes, AtomicLong::get)
+                .baseUnit("bytes").description("Bytes of stored files").register(registry);
+        Gauge.builder("pdf.storage.files", entries, Map::size)
+                .description("Stored files").register(registry);
+        FunctionCounter.builder("pdf.storage.evictions", expiredEvictions, AtomicLong::get).tag("reason", "expired")
+                .description("Stored files deleted by the sweeper").register(registry);
+        FunctionCounter.builder("pdf.storage.evictions", quotaEvictions, AtomicLong::get).tag("reason", "quota")
+                .description("Stored files deleted by the sweeper").register(registry);
+        FunctionCounter.builder("pdf.storage.evicted.bytes", evictedBytes, AtomicLong::get).baseUnit("bytes")
+                .description("Bytes of stored files deleted by the sweeper").register(registry);
+    }
+
+    public static boolean isValidFileId(String fileId) {
+        return fileId != null && FILE_ID.matcher(fileId).matches();
+    }
+
+    /**
+     * Moves {@code received} into the store under {@code fileId}, unless a file with that id is
+     * already stored, in which case that one is kept and marked as accessed.
+     */
+    public StoredFile store(String fileId, Path received, long size) throws IOException {
+        return store(fileId, received, size, System.currentTimeMillis());
+    }
+
+    /** Stores a file as last accessed at the given time, e.g. one taken over from an older layout. */
+    StoredFile store(String fileId, Path received, long size, long lastAccess) throws IOException {
+        Path target = pathFor(fileId);
+        Entry existing;
+        boolean deduplicated;
+        ReentrantLock lock = lockFor(fileId);
+        lock.lock();
+        try {
+            existing = entries.get(fileId);
+            deduplicated = existing != null && Files.exists(target);
+            if (deduplicated) {
+                existing.touch();
+            } else {
+                moveIntoPlace(received, target);
+                entries.compute(fileId, (id, entry) -> {
+                    storedBytes.addAndGet(size - (entry != null ? entry.size : 0));
+                    return new Entry(size, lastAccess, entry != null ? entry.pins : 0);
+                });
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (deduplicated) {
+            persistAccess(fileId, existing);
+        }
+        if (maxBytes > 0 && storedBytes.get() > maxBytes) {
+            sweeper.execute(this::sweep);
+        }
+        return new StoredFile(fileId, target, size, deduplicated);
+    }
+
+    /**
+     * Renames the file into place, or copies it when the store is on another file system than the
+     * upload; the copy goes to a temporary name first so that a stored file is never seen half written.
+     */
+    private static void moveIntoPlace(Path received, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(received, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Path partial = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+            try {
+                Files.move(received, partial, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(partial);
+            }
+        }
+    }
+
+    /** Looks up a stored file and marks it as accessed, without pinning it. */
+    public Optional<StoredFile> find(String fileId) {
+        if (!isValidFileId(fileId)) {
+            return Optional.empty();
+        }
+        Entry entry = entries.get(fileId);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        entry.touch();
+        persistAccess(fileId, entry);
+        return Optional.of(new StoredFile(fileId, pathFor(fileId), entry.size, false));
+    }
+
+    /**
+     * Looks up a stored file and pins it until the lease is closed, so that a sweep cannot delete it
+     * while it is being read.
+     */
+    public Optional<Lease> acquire(String fileId) {
+        if (!isValidFileId(fileId)) {
+            return Optional.empty();
+        }
+        Entry pinned = entries.computeIfPresent(fileId, (id, entry) -> {
+            entry.pins++;
+            entry.touch();
+            return entry;
+        });
+        if (pinned == null) {
+            return Optional.empty();
+        }
+        persistAccess(fileId, pinned);
+        return Optional.of(new Lease(new StoredFile(fileId, pathFor(fileId), pinned.size, false)));
+    }
+
+    private void release(String fileId) {
+        // Touched again, so that the TTL counts from the end of the read.
+        Entry released = entries.computeIfPresent(fileId, (id, entry) -> {
+            entry.pins--;
+            entry.touch();
+            return entry;
+        });
+        if (released != null) {
+            persistAccess(fileId, released);
+        }
+    }
+
+    /**
+     * Writes the last access back to the file's modification time, which is what a restart rebuilds
+     * it from. Called outside the index, and throttled so that a file read in a loop is not written
+     * to on every read; a restart may then see it up to the interval older than it was.
+     */
+    private void persistAccess(String fileId, Entry entry) {
+        long lastAccess = entry.lastAccess;
+        if (lastAccess - entry.persistedAccess < PERSIST_ACCESS_INTERVAL_MILLIS) {
+            return;
+        }
+        entry.persistedAccess = lastAccess;
+        try {
+            Files.setLastModifiedTime(pathFor(fileId), FileTime.fromMillis(lastAccess));
+        } catch (IOException ignored) {
+            // Only makes the file look older after a restart, or it has just been evicted.
+        }
+    }
+
+    /**
+     * Deletes files not accessed within the TTL, then the least recently accessed files until the
+     * store is within its quota. Pinned files are skipped. A sweep that is already running is not
+     * started again.
+     */
+    @Scheduled(fixedDelayString = "${pdf.storage.sweep-interval:1m}")
+    public void sweep() {
+        if (!sweepLock.tryLock()) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            // Access times keep changing, so they are sorted from a snapshot.
+            List<Candidate> candidates = new ArrayList<>(entries.size());
+            entries.forEach((fileId, entry) -> candidates.add(new Candidate(fileId, entry.lastAccess)));
+            candidates.sort(Comparator.comparingLong(Candidate::lastAccess));
+
+            int expired = 0;
+            int overQuota = 0;
+            for (Candidate candidate : candidates) {
+                if (ttl.isPositive() && candidate.lastAccess() < now - ttl.toMillis()) {
+                    if (evict(candidate.fileId(), candidate.lastAccess())) {
+                        expiredEvictions.incrementAndGet();
+                        expired++;
+                    }
+                } else if (maxBytes > 0 && storedBytes.get() > maxBytes) {
+                    if (evict(candidate.fileId(), candidate.lastAccess())) {
+                        quotaEvictions.incrementAndGet();
+                        overQuota++;
+                    }
+                } else {
+                    break;
+                }
+            }
+            if (expired > 0 || overQuota > 0) {
+                logger.info("Evicted {} expired and {} least recently used stored files, {} bytes remain",
+                        expired, overQuota, storedBytes.get());
+            }
+        } finally {
+            sweepLock.unlock();
+        }
+    }
+
+    /**
+     * Deletes the file unless it is pinned or was accessed after the sweep looked at it. The entry
+     * is removed first, so that it cannot be pinned any more once the file is being deleted.
+     */
+    private boolean evict(String fileId, long seenLastAccess) {
+        ReentrantLock lock = lockFor(fileId);
+        lock.lock();
+        try {
+            Entry[] removed = new Entry[1];
+            entries.computeIfPresent(fileId, (id, entry) -> {
+                if (entry.pins > 0 || entry.lastAccess != seenLastAccess) {
+                    return entry;
+                }
+                removed[0] = entry;
+                return null;
+            });
+            if (removed[0] == null) {
+                return false;
+            }
+            try {
+                Files.deleteIfExists(pathFor(fileId));
+            } catch (IOException ex) {
+                logger.warn("Could not delete stored file {}: {}", fileId, ex.getMessage());
+                entries.putIfAbsent(fileId, removed[0]);
+                return false;
+            }
+            storedBytes.addAndGet(-removed[0].size);
+            evictedBytes.addAndGet(removed[0].size);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void scan() throws IOException {
+        long started = System.nanoTime();
+        try (Stream<Path> files = Files.find(root, 3, (path, attributes) -> attributes.isRegularFile())) {
+            files.forEach(path -> {
+                try {
+                    String name = path.getFileName().toString();
+                    if (!isValidFileId(name)) {
+                        // Temporary copies left by a crash while a file was being stored.
+                        Files.deleteIfExists(path);
+                        return;
+                    }
+                    BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                    entries.put(name, new Entry(attributes.size(), attributes.lastModifiedTime().toMillis(), 0));
+                    storedBytes.addAndGet(attributes.size());
+                } catch (IOException ex) {
+                    logger.warn("Skipping stored file {}: {}", path, ex.getMessage());
+                }
+            });
+        }
+        logger.info("Indexed {} stored files ({} bytes) under {} in {} ms", entries.size(), storedBytes.get(), root,
+                Duration.ofNanos(System.nanoTime() - started).toMillis());
+    }
+
+    private Path pathFor(String fileId) {
+        return root.resolve(fileId.substring(0, 2)).resolve(fileId.substring(2, 4)).resolve(fileId);
+    }
+
+    private ReentrantLock lockFor(String fileId) {
+        return fileLocks[Math.floorMod(fileId.hashCode(), LOCK_STRIPES)];
+    }
+
+    @Override
+    public void destroy() {
+        sweeper.shutdownNow();
+    }
+
+    /** A stored file pinned against deletion until closed; closing it more than once has no further effect. */
+    public final class Lease implements AutoCloseable {
+        private final StoredFile file;
+        private final AtomicBoolean held = new AtomicBoolean(true);
+
+        private Lease(StoredFile file) {
+            this.file = file;
+        }
+
+        public StoredFile file() {
+            return file;
+        }
+
+        @Override
+        public void close() {
+            if (held.compareAndSet(true, false)) {
+                release(file.id());
+            }
+        }
+    }
+
+    private record Candidate(String fileId, long lastAccess) {
+    }
+
+    /**
+     * Pins are only changed inside {@code compute} calls on the entry, which serialize them.
+     * {@code persistedAccess} is the last access last written to the file.
+     */
+    private static final class Entry {
+        private final long size;
+        private volatile long lastAccess;
+        private volatile long persistedAccess;
+        private int pins;
+
+        private Entry(long size, long lastAccess, int pins) {
+            this.size = size;
+            this.lastAccess = lastAccess;
+            this.persistedAccess = lastAccess;
+            this.pins = pins;
+        }
+
+        private void touch() {
+            lastAccess = System.currentTimeMillis();
+        }
+    }
+}
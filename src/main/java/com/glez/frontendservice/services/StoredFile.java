@@ -0,0 +1,10 @@
+package com.glez.frontendservice.services;
+
+import java.nio.file.Path;
+
+/**
+ * A file kept in the content-addressed store under {@code upload-dir}. The id is the SHA-256 of the
+ * content; {@code deduplicated} tells whether identical content was already stored.
+ */
+public record StoredFile(String id, Path path, long size, boolean deduplicated) {
+}
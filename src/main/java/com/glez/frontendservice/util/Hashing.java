@@ -0,0 +1,29 @@
+package com.glez.frontendservice.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+public final class Hashing {
+
+    private Hashing() {
+    }
+
+    public static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /** Feeds the rest of the stream into the digest and closes the stream. */
+    public static void update(MessageDigest digest, InputStream input) throws IOException {
+        try (InputStream digested = new DigestInputStream(input, digest)) {
+            digested.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+}
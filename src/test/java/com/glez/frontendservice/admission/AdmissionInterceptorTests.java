@@ -0,0 +1,45 @@
+package com.glez.frontendservice.admission;
+
+import com.glez.frontendservice.config.PdfProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdmissionInterceptorTests {
+
+    @Test
+    void rejectsWith503AndRetryAfterUntilThePermitIsReleased() throws Exception {
+        PdfProperties properties = new PdfProperties();
+        properties.getAdmission().setMemoryBudgetBytes(1024 * 1024);
+        properties.getAdmission().setCpuSlots(1);
+        properties.getAdmission().setMaxWait(Duration.ofMillis(50));
+        properties.getAdmission().setRetryAfter(Duration.ofSeconds(7));
+        MeterRegistry registry = new SimpleMeterRegistry();
+        AdmissionController controller = new AdmissionController(properties, registry);
+        controller.bindTo(registry);
+        AdmissionInterceptor interceptor = new AdmissionInterceptor(controller, request -> 1024);
+
+        MockHttpServletRequest first = new MockHttpServletRequest("POST", "/api/pdf/extract-content");
+        assertThat(interceptor.preHandle(first, new MockHttpServletResponse(), null)).isTrue();
+        assertThat(registry.get("pdf.admission.cpu.in.use").gauge().value()).isEqualTo(1);
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        assertThat(interceptor.preHandle(new MockHttpServletRequest("POST", "/api/pdf/extract-content"), rejected, null))
+                .isFalse();
+        assertThat(rejected.getStatus()).isEqualTo(503);
+        assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("7");
+        assertThat(registry.get("pdf.admission.rejected").counter().count()).isEqualTo(1);
+
+        interceptor.afterCompletion(first, new MockHttpServletResponse(), null, null);
+        assertThat(registry.get("pdf.admission.cpu.in.use").gauge().value()).isZero();
+        assertThat(interceptor.preHandle(new MockHttpServletRequest("POST", "/api/pdf/extract-content"),
+                new MockHttpServletResponse(), null)).isTrue();
+    }
+}
@@ -0,0 +1,127 @@
+package com.glez.frontendservice.pdf.converter;
+
+import com.glez.frontendservice.config.PdfProperties;
+import com.glez.frontendservice.metrics.PdfMetrics;
+import com.glez.frontendservice.pdf.font.DocumentFonts;
+import com.glez.frontendservice.pdf.font.FontRegistry;
+import com.glez.frontendservice.pdf.image.ImageStore;
+import com.glez.frontendservice.pdf.model.PDFDocument;
+import com.glez.frontendservice.pdf.model.PDFMetadata;
+import com.glez.frontendservice.pdf.model.PDFPage;
+import com.glez.frontendservice.pdf.model.StyledText;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JsonToPDFConverterTests {
+
+    private static final String FALLBACK_FONT = "/org/apache/pdfbox/resources/ttf/LiberationSans-Regular.ttf";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void replacesCharactersNoFontCanEncode() throws IOException {
+        PdfProperties properties = new PdfProperties();
+
+        String text = generateAndExtract(properties, "Helvetica", "Ωmega ☃ 😀");
+
+        assertThat(text).isEqualTo("?mega ? ?");
+    }
+
+    @Test
+    void usesConfiguredFallbackForCharactersTheFontCannotEncode() throws IOException {
+        PdfProperties properties = new PdfProperties();
+        properties.getFonts().setFiles(List.of(copyFallbackFont().toString()));
+        properties.getFonts().setFallback("LiberationSans");
+
+        String text = generateAndExtract(properties, "Helvetica", "Ωmega ☃");
+
+        assertThat(text).isEqualTo("Ωmega ?");
+    }
+
+    @Test
+    void resolvesConfiguredFontsByNameAndOthersToStandard14() throws IOException {
+        PdfProperties properties = new PdfProperties();
+        properties.getFonts().setFiles(List.of(copyFallbackFont().toString()));
+        FontRegistry registry = new FontRegistry(properties);
+
+        try (PDDocument document = new PDDocument()) {
+            DocumentFonts fonts = registry.forDocument(document);
+            PDFont configured = fonts.resolve("ABCDEF+LiberationSans", false, false);
+            PDFont arialBold = fonts.resolve("Arial-BoldMT", true, false);
+            PDFont courier = fonts.resolve("CourierNewPSMT", false, true);
+            PDFont unknown = fonts.resolve("SomeSerif", false, false);
+
+            assertThat(configured.getName()).endsWith("LiberationSans");
+            assertThat(configured.isEmbedded()).isTrue();
+            assertThat(arialBold.getName()).isEqualTo("Helvetica-Bold");
+            assertThat(courier.getName()).isEqualTo("Courier-Oblique");
+            assertThat(unknown.getName()).isEqualTo("Times-Roman");
+        }
+    }
+
+    @Test
+    void generatesTextWithoutAFontSize() throws IOException {
+        // fontSize is left out of the JSON, as for text nobody measured.
+        StyledText unsized = StyledText.builder()
+                .text("AB").fontName("Helvetica").x(72f).y(100f).glyphOffsets(new float[]{0f, 10f})
+                .red(-1f).green(-1f).blue(-1f)
+                .build();
+        StyledText sized = StyledText.builder()
+                .text("C").fontName("Helvetica").fontSize(12f).x(100f).y(100f)
+                .red(-1f).green(-1f).blue(-1f)
+                .build();
+
+        String text = generateAndExtract(new PdfProperties(), List.of(unsized, sized));
+
+        assertThat(text).contains("C");
+    }
+
+    private String generateAndExtract(PdfProperties properties, String fontName, String content) throws IOException {
+        return generateAndExtract(properties, List.of(StyledText.builder()
+                .text(content).fontName(fontName).fontSize(12f).x(72f).y(100f)
+                .red(-1f).green(-1f).blue(-1f)
+                .build()));
+    }
+
+    private String generateAndExtract(PdfProperties properties, List<StyledText> texts) throws IOException {
+        JsonToPDFConverter converter = new JsonToPDFConverter(new ImageStore(properties), new FontRegistry(properties),
+                properties, PdfMetrics.noop());
+        PDFPage page = new PDFPage();
+        page.setPageNumber(1);
+        page.setWidth(595f);
+        page.setHeight(842f);
+        page.setTexts(new ArrayList<>(texts));
+        PDFDocument document = new PDFDocument();
+        document.setMetadata(PDFMetadata.builder().title("Fonts").totalPages(1).build());
+        document.getPages().add(page);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        converter.convertJsonToPdf(document, out);
+        try (PDDocument generated = Loader.loadPDF(out.toByteArray())) {
+            return new PDFTextStripper().getText(generated).strip();
+        }
+    }
+
+    private Path copyFallbackFont() throws IOException {
+        Path font = tempDir.resolve("LiberationSans-Regular.ttf");
+        try (InputStream in = JsonToPDFConverterTests.class.getResourceAsStream(FALLBACK_FONT)) {
+            Files.copy(in, font);
+        }
+        return font;
+    }
+}
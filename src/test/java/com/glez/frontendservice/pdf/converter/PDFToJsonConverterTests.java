@@ -0,0 +1,138 @@
+package com.glez.frontendservice.pdf.converter;
+
+import com.glez.frontendservice.config.PdfProperties;
+import com.glez.frontendservice.metrics.PdfMetrics;
+import com.glez.frontendservice.pdf.image.ImageStore;
+import com.glez.frontendservice.pdf.model.PDFDocument;
+import com.glez.frontendservice.pdf.model.PDFImage;
+import com.glez.frontendservice.pdf.model.PDFPage;
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSInteger;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.pdfbox.pdmodel.graphics.color.PDDeviceGray;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PDFToJsonConverterTests {
+
+    @TempDir
+    Path tempDir;
+
+    private PageExtractionPool pool;
+    private PageCache pageCache;
+    private PDFToJsonConverter converter;
+
+    @BeforeEach
+    void setUp() {
+        PdfProperties properties = new PdfProperties();
+        properties.getExtraction().getParallel().setEnabled(false);
+        pool = new PageExtractionPool(properties);
+        pageCache = new PageCache(properties);
+        converter = new PDFToJsonConverter(properties, pool, new ImageStore(properties), pageCache, PdfMetrics.noop());
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.destroy();
+    }
+
+    @Test
+    void reusesPagesWithTheSameFingerprintIncludingPagesWithoutResources() throws IOException {
+        Path first = writePdf("first.pdf", "Chapter one", "Chapter two");
+        Path edited = writePdf("edited.pdf", "Chapter one", "Chapter two, revised");
+
+        PDFDocument extracted = converter.convertPdfToDocumentModel(first, ExtractionOptions.defaults());
+        PDFDocument again = converter.convertPdfToDocumentModel(edited, ExtractionOptions.defaults());
+
+        assertThat(extracted.getPages()).extracting(PDFPage::isReused).containsExactly(false, false, false);
+        assertThat(again.getPages()).extracting(PDFPage::isReused).containsExactly(true, true, false);
+        assertThat(again.getPages()).extracting(PDFPage::getPageNumber).containsExactly(1, 2, 3);
+        assertThat(again.getPages().get(0).getFingerprint()).isEqualTo(extracted.getPages().get(0).getFingerprint());
+        assertThat(again.getPages().get(1).getTexts()).isEqualTo(extracted.getPages().get(1).getTexts());
+        assertThat(pageCache.getHits()).isEqualTo(2);
+    }
+
+    @Test
+    void reusedPagesDoNotShareStateWithTheCache() throws IOException {
+        Path pdf = writePdf("shared.pdf", "Chapter one");
+        converter.convertPdfToDocumentModel(pdf, ExtractionOptions.defaults()).getPages().get(1).getTexts().clear();
+
+        PDFDocument reused = converter.convertPdfToDocumentModel(pdf, ExtractionOptions.defaults());
+        reused.getPages().get(1).getTexts().clear();
+
+        PDFPage page = converter.convertPdfToDocumentModel(pdf, ExtractionOptions.defaults()).getPages().get(1);
+        assertThat(page.isReused()).isTrue();
+        assertThat(page.getTexts()).isNotEmpty();
+    }
+
+    @Test
+    void imagesWithTheSameDataGetTheSameIdOnlyWhenTheirDictionariesMatch() throws IOException {
+        Path file = tempDir.resolve("images.pdf");
+        try (PDDocument document = new PDDocument()) {
+            PDPage page = new PDPage();
+            document.addPage(page);
+            PDImageXObject plain = grayImage(document);
+            PDImageXObject inverted = grayImage(document);
+            inverted.getCOSObject().setItem(COSName.DECODE, new COSArray(List.of(COSInteger.ONE, COSInteger.ZERO)));
+            PDImageXObject copy = grayImage(document);
+            try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                content.drawImage(plain, 72, 600);
+                content.drawImage(inverted, 172, 600);
+                content.drawImage(copy, 272, 600);
+            }
+            document.save(file.toFile());
+        }
+
+        List<PDFImage> images = converter.convertPdfToDocumentModel(file, ExtractionOptions.defaults())
+                .getPages().get(0).getImages();
+
+        assertThat(images).hasSize(3);
+        assertThat(images.get(2).getId()).isEqualTo(images.get(0).getId());
+        assertThat(images.get(1).getId()).isNotEqualTo(images.get(0).getId());
+        assertThat(images.get(1).getData()).isNotEqualTo(images.get(0).getData());
+    }
+
+    /** A 2x1 grayscale image, black then white, stored without a filter. */
+    private static PDImageXObject grayImage(PDDocument document) throws IOException {
+        return new PDImageXObject(document, new ByteArrayInputStream(new byte[]{0, (byte) 255}), null, 2, 1, 8,
+                PDDeviceGray.INSTANCE);
+    }
+
+    /** A blank page without /Resources, followed by one page per text. */
+    private Path writePdf(String name, String... texts) throws IOException {
+        Path file = tempDir.resolve(name);
+        try (PDDocument document = new PDDocument()) {
+            PDPage blank = new PDPage();
+            assertThat(blank.getResources()).isNull();
+            document.addPage(blank);
+            for (String text : texts) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 12);
+                    content.newLineAtOffset(72, 720);
+                    content.showText(text);
+                    content.endText();
+                }
+            }
+            document.save(file.toFile());
+        }
+        return file;
+    }
+}
@@ -0,0 +1,42 @@
+package com.glez.frontendservice.pdf.converter;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PageSelectionTests {
+
+    @Test
+    void openEndedRangeRunsToTheLastPage() {
+        PageSelection selection = PageSelection.fromParameter("5-");
+
+        assertThat(selection.toString()).isEqualTo("5-");
+        assertThat(selection.contains(4)).isFalse();
+        assertThat(selection.contains(Integer.MAX_VALUE)).isTrue();
+        assertThat(selection.pagesIn(7)).containsExactly(5, 6, 7);
+        assertThat(selection.pagesIn(3)).isEmpty();
+    }
+
+    @Test
+    void sortsAndMergesOverlappingAndAdjacentRanges() {
+        PageSelection selection = PageSelection.fromParameter(" 10 , 3-4,1-2, 8-12, 11-, ,6");
+
+        assertThat(selection.toString()).isEqualTo("1-4,6,8-");
+        assertThat(selection).isEqualTo(PageSelection.fromParameter("8-,6,1-4"));
+        assertThat(selection.contains(5)).isFalse();
+        assertThat(selection.contains(7)).isFalse();
+        assertThat(selection.pagesIn(9)).containsExactly(1, 2, 3, 4, 6, 8, 9);
+    }
+
+    @Test
+    void blankSelectsEveryPageAndMalformedRangesAreRejected() {
+        assertThat(PageSelection.fromParameter(null)).isNull();
+        assertThat(PageSelection.fromParameter(" , ")).isNull();
+
+        assertThatThrownBy(() -> PageSelection.fromParameter("0-3")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PageSelection.fromParameter("-3")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PageSelection.fromParameter("4-2")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PageSelection.fromParameter("a")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
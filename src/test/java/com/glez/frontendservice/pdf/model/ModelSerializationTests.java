@@ -0,0 +1,175 @@
+package com.glez.frontendservice.pdf.model;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ModelSerializationTests {
+
+    @Test
+    void streamingRoundTripKeepsDocument() throws IOException {
+        PDFDocument document = sampleDocument();
+
+        StringWriter json = new StringWriter();
+        try (JsonGenerator generator = new JsonFactory().createGenerator(json)) {
+            document.writeTo(generator);
+        }
+        PDFDocument read;
+        try (JsonParser parser = new JsonFactory().createParser(json.toString())) {
+            parser.nextToken();
+            read = PDFDocument.readFrom(parser);
+        }
+
+        assertThat(read).isEqualTo(document);
+    }
+
+    @Test
+    void orgJsonAdaptersMatchStreamingPath() {
+        PDFDocument document = sampleDocument();
+
+        JSONObject json = document.toJson();
+
+        assertThat(PDFDocument.fromJson(json)).isEqualTo(document);
+        assertThat(json.getJSONArray("pages").getJSONObject(0).getJSONArray("texts").getJSONObject(1)
+                .getJSONArray("glyphOffsets").length()).isEqualTo(3);
+    }
+
+    @Test
+    void objectMapperUsesModelSerializer() throws IOException {
+        PDFDocument document = sampleDocument();
+        ObjectMapper jsonMapper = new ObjectMapper();
+        ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+
+        String json = jsonMapper.writeValueAsString(document);
+
+        assertThat(new JSONObject(json).similar(document.toJson())).isTrue();
+        assertThat(jsonMapper.readValue(json, PDFDocument.class)).isEqualTo(document);
+        assertThat(cborMapper.readValue(cborMapper.writeValueAsBytes(document), PDFDocument.class)).isEqualTo(document);
+    }
+
+    @Test
+    void binaryFormatsCarryImageDataAsBytes() throws IOException {
+        PDFDocument document = sampleDocument();
+        ObjectMapper jsonMapper = new ObjectMapper();
+        List<ObjectMapper> binaryMappers = List.of(
+                new ObjectMapper(new CBORFactory()),
+                new ObjectMapper(SmileFactory.builder().disable(SmileGenerator.Feature.ENCODE_BINARY_AS_7BIT).build()));
+
+        assertThat(jsonMapper.readTree(jsonMapper.writeValueAsBytes(document))
+                .at("/pages/0/images/1/data").isTextual()).isTrue();
+        for (ObjectMapper mapper : binaryMappers) {
+            byte[] encoded = mapper.writeValueAsBytes(document);
+            JsonNode data = mapper.readTree(encoded).at("/pages/0/images/1/data");
+
+            assertThat(data.isBinary()).isTrue();
+            assertThat(data.binaryValue()).isEqualTo(Base64.getDecoder().decode("/9j/4AAQ"));
+            assertThat(mapper.readValue(encoded, PDFDocument.class)).isEqualTo(document);
+        }
+    }
+
+    @Test
+    void copyDoesNotShareMutableState() {
+        PDFDocument document = sampleDocument();
+
+        PDFDocument copy = document.copy();
+        copy.getPages().get(0).getTexts().get(1).getGlyphOffsets()[0] = 99f;
+        copy.getPages().get(0).getImages().clear();
+        copy.getPages().get(0).getBlocks().get(0).getLines().get(0).getWords().get(0).setText("X");
+        copy.getMetadata().setTitle("Changed");
+
+        assertThat(document).isEqualTo(sampleDocument());
+        assertThat(sampleDocument().copy()).isEqualTo(sampleDocument());
+    }
+
+    @Test
+    void readsEpochMillisDatesAndSkipsUnknownFields() {
+        JSONObject json = new JSONObject()
+                .put("unknown", new JSONObject().put("nested", List.of(1, 2)))
+                .put("metadata", new JSONObject()
+                        .put("title", "Legacy")
+                        .put("creationDate", 1_700_000_000_000L)
+                        .put("totalPages", 0))
+                .put("pages", List.of());
+
+        PDFDocument document = PDFDocument.fromJson(json);
+
+        assertThat(document.getMetadata().getTitle()).isEqualTo("Legacy");
+        assertThat(document.getMetadata().getCreationDate()).isEqualTo(Instant.ofEpochMilli(1_700_000_000_000L));
+        assertThat(document.getPages()).isEmpty();
+    }
+
+    @Test
+    void missingOptionalFieldsKeepDefaults() {
+        StyledText text = StyledText.fromJson(new JSONObject().put("text", "a").put("fontName", "Times"));
+
+        assertThat(text.getRed()).isEqualTo(-1f);
+        assertThat(text.getGlyphOffsets()).isNull();
+        assertThat(text.isUnderlined()).isFalse();
+    }
+
+    private static PDFDocument sampleDocument() {
+        PDFDocument document = new PDFDocument();
+        document.setId("0123456789abcdef");
+        document.setMetadata(PDFMetadata.builder()
+                .title("Sample")
+                .author("Author")
+                .creationDate(Instant.parse("2024-01-02T03:04:05.678Z"))
+                .totalPages(1)
+                .build());
+
+        PDFPage page = new PDFPage();
+        page.setPageNumber(1);
+        page.setWidth(595.28f);
+        page.setHeight(841.89f);
+        page.setFingerprint("9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08");
+        page.setReused(true);
+        page.getTexts().add(StyledText.builder()
+                .text("H").fontName("ABCDEF+Helvetica-Bold").fontSize(12f).bold(true)
+                .x(72.5f).y(100.25f).width(8.66f).height(8.6f)
+                .red(0.2f).green(0.4f).blue(0.6f)
+                .build());
+        page.getTexts().add(StyledText.builder()
+                .text("abc").fontName("Times-Italic").fontSize(10f).italic(true)
+                .x(90f).y(100.25f).width(20f).height(7f)
+                .glyphOffsets(new float[]{0f, 4.44f, 10.5f})
+                .build());
+        page.getImages().add(PDFImage.builder()
+                .id("fedcba9876543210").name("Im1").format("png")
+                .width(32).height(16).x(10f).y(20f)
+                .build());
+        page.getImages().add(PDFImage.builder()
+                .name("Im2").format("jpg").width(1).height(1).data("/9j/4AAQ")
+                .build());
+        TextLine line = new TextLine();
+        line.setX(72.5f);
+        line.setY(100.25f);
+        line.setWidth(37.5f);
+        line.setHeight(8.6f);
+        line.getWords().add(new TextWord("H", 72.5f, 8.66f));
+        line.getWords().add(new TextWord("abc", 90f, 20f));
+        TextBlock block = new TextBlock();
+        block.setX(72.5f);
+        block.setY(91.65f);
+        block.setWidth(37.5f);
+        block.setHeight(8.6f);
+        block.getLines().add(line);
+        page.setBlocks(List.of(block));
+        document.getPages().add(page);
+        return document;
+    }
+}
@@ -0,0 +1,76 @@
+package com.glez.frontendservice.search;
+
+import com.glez.frontendservice.config.PdfProperties;
+import com.glez.frontendservice.pdf.model.PDFDocument;
+import com.glez.frontendservice.pdf.model.PDFPage;
+import com.glez.frontendservice.pdf.model.StyledText;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchIndexTests {
+
+    @Test
+    void findsPhrasesInRunsAndGlyphsWithARectPerWord() {
+        SearchIndex index = new SearchIndex(new PdfProperties());
+        index.index(document("doc",
+                page(1, List.of(text("Hello brave world", 10f, 170f))),
+                page(2, glyphs("brave, world", 10f)),
+                page(3, List.of(text("Hello", 10f, 50f)))));
+
+        SearchResult result = index.search("doc", "BRAVE world", 10).orElseThrow();
+
+        assertThat(result.truncated()).isFalse();
+        assertThat(result.hits()).containsExactly(
+                new SearchHit(1, List.of(new HighlightRect(70f, 100f, 50f, 12f), new HighlightRect(130f, 100f, 50f, 12f))),
+                new SearchHit(2, List.of(new HighlightRect(10f, 100f, 50f, 12f), new HighlightRect(80f, 100f, 50f, 12f))));
+    }
+
+    @Test
+    void phrasesDoNotSpanPagesAndHitsAreLimited() {
+        SearchIndex index = new SearchIndex(new PdfProperties());
+        index.index(document("doc",
+                page(1, List.of(text("Hello world", 10f, 110f))),
+                page(2, List.of(text("hello world", 10f, 110f)))));
+
+        assertThat(index.search("doc", "world hello", 10).orElseThrow().hits()).isEmpty();
+        assertThat(index.search("doc", "missing", 10).orElseThrow().hits()).isEmpty();
+
+        SearchResult limited = index.search("doc", "hello", 1).orElseThrow();
+        assertThat(limited.hits()).extracting(SearchHit::page).containsExactly(1);
+        assertThat(limited.truncated()).isTrue();
+
+        assertThat(index.search("other", "hello", 10)).isEmpty();
+        assertThat(index.evict("doc")).isTrue();
+        assertThat(index.contains("doc")).isFalse();
+    }
+
+    private static PDFDocument document(String id, PDFPage... pages) {
+        PDFDocument document = new PDFDocument();
+        document.setId(id);
+        document.getPages().addAll(List.of(pages));
+        return document;
+    }
+
+    private static PDFPage page(int pageNumber, List<StyledText> texts) {
+        PDFPage page = new PDFPage();
+        page.setPageNumber(pageNumber);
+        page.getTexts().addAll(texts);
+        return page;
+    }
+
+    /** One run, with its characters spread evenly over its width. */
+    private static StyledText text(String value, float x, float width) {
+        return StyledText.builder().text(value).x(x).y(100f).width(width).height(12f).fontSize(12f).build();
+    }
+
+    /** One text per character, 10 points apart, as glyph-level extraction produces. */
+    private static List<StyledText> glyphs(String value, float x) {
+        return IntStream.range(0, value.length())
+                .mapToObj(i -> text(value.substring(i, i + 1), x + 10f * i, 10f))
+                .toList();
+    }
+}
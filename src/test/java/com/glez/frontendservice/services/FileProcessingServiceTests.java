@@ -0,0 +1,68 @@
+package com.glez.frontendservice.services;
+
+import com.glez.frontendservice.config.PdfProperties;
+import com.glez.frontendservice.metrics.PdfMetrics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileProcessingServiceTests {
+
+    // SHA-256 of "same content"
+    private static final String SAME_CONTENT_ID = "a636bd7cd42060a4d07fa1bfbcc010eb7794c2ba721e1e3e4c20335a15b66eaf";
+
+    @TempDir
+    Path tempDir;
+
+    private FileProcessingService service;
+
+    @BeforeEach
+    void setUp() {
+        PdfProperties properties = new PdfProperties();
+        properties.getStorage().setDirectory(tempDir.resolve("store").toString());
+        StorageManager storageManager = new StorageManager(properties);
+        service = new FileProcessingService(storageManager, PdfMetrics.noop());
+    }
+
+    @Test
+    void storesContentOnceUnderItsHash() throws IOException {
+        StoredFile first = service.storeFile(upload("a.pdf", "same content"));
+        StoredFile second = service.storeFile(upload("b.pdf", "same content"));
+        StoredFile other = service.storeFile(upload("c.pdf", "other content"));
+
+        assertThat(first.id()).isEqualTo(SAME_CONTENT_ID);
+        assertThat(first.deduplicated()).isFalse();
+        assertThat(first.path()).endsWith(Path.of("a6", "36", SAME_CONTENT_ID));
+        assertThat(second.id()).isEqualTo(first.id());
+        assertThat(second.deduplicated()).isTrue();
+        assertThat(other.id()).isNotEqualTo(first.id());
+        assertThat(Files.readString(second.path())).isEqualTo("same content");
+        assertThat(storedFiles()).isEqualTo(2);
+
+        assertThat(service.findStoredFile(first.id())).hasValueSatisfying(found -> {
+            assertThat(found.path()).isEqualTo(first.path());
+            assertThat(found.size()).isEqualTo(12);
+        });
+        assertThat(service.findStoredFile("../" + first.id())).isEmpty();
+        assertThat(service.findStoredFile("0".repeat(64))).isEmpty();
+    }
+
+    private static MockMultipartFile upload(String name, String content) {
+        return new MockMultipartFile("file", name, "application/pdf", content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private long storedFiles() throws IOException {
+        try (Stream<Path> files = Files.find(tempDir.resolve("store"), 3, (path, attributes) -> attributes.isRegularFile())) {
+            return files.count();
+        }
+    }
+}
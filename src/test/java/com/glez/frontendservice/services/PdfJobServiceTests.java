@@ -0,0 +1,165 @@
+package com.glez.frontendservice.services;
+
+import com.glez.frontendservice.config.PdfProperties;
+import com.glez.frontendservice.controlers.PdfJobController;
+import com.glez.frontendservice.pdf.converter.ExtractionOptions;
+import com.glez.frontendservice.pdf.converter.PdfContentSink;
+import com.glez.frontendservice.pdf.model.PDFDocument;
+import com.glez.frontendservice.pdf.model.PDFPage;
+import com.glez.frontendservice.pdf.model.StyledText;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PdfJobServiceTests {
+
+    @TempDir
+    Path tempDir;
+
+    private PdfJobService service;
+
+    @AfterEach
+    void shutDown() {
+        if (service != null) {
+            service.destroy();
+        }
+    }
+
+    @Test
+    void runsQueuedJobsToCompletion() throws Exception {
+        BlockingProcessingService processing = new BlockingProcessingService();
+        service = new PdfJobService(processing, properties(1, 1, 1024 * 1024));
+
+        PdfJob running = service.submit(processing.stage("running.pdf"), ExtractionOptions.defaults());
+        assertThat(processing.started.await(10, TimeUnit.SECONDS)).isTrue();
+        PdfJob queued = service.submit(processing.stage("queued.pdf"), ExtractionOptions.defaults());
+
+        assertThat(running.getStatus()).isEqualTo(PdfJob.Status.RUNNING);
+        assertThat(queued.getStatus()).isEqualTo(PdfJob.Status.QUEUED);
+        assertThat(queued.getResult()).isNull();
+
+        processing.release.countDown();
+        awaitFinished(queued);
+
+        assertThat(queued.getStatus()).isEqualTo(PdfJob.Status.COMPLETED);
+        assertThat(queued.getTotalPages()).isEqualTo(1);
+        assertThat(queued.getPagesDone()).isEqualTo(1);
+        assertThat(queued.getResult().getId()).isEqualTo("queued.pdf");
+        assertThat(service.getJob(queued.getId())).containsSame(queued);
+    }
+
+    @Test
+    void answers429WhenTheQueueIsFull() throws Exception {
+        BlockingProcessingService processing = new BlockingProcessingService();
+        service = new PdfJobService(processing, properties(1, 1, 1024 * 1024));
+        PdfJobController controller = new PdfJobController(service, processing);
+
+        assertThat(submit(controller, "running.pdf").getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+        assertThat(processing.started.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(submit(controller, "queued.pdf").getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+
+        assertThat(submit(controller, "rejected.pdf").getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(tempDir.resolve("rejected.pdf")).doesNotExist();
+        processing.release.countDown();
+    }
+
+    @Test
+    void dropsTheLeastRecentlyFetchedResultsBeyondTheBudget() throws Exception {
+        BlockingProcessingService processing = new BlockingProcessingService();
+        processing.release.countDown();
+        long resultBytes = ExtractionResultCache.estimateSize(document("a.pdf"));
+        service = new PdfJobService(processing, properties(1, 4, 2 * resultBytes));
+
+        PdfJob first = awaitFinished(service.submit(processing.stage("a.pdf"), ExtractionOptions.defaults()));
+        PdfJob second = awaitFinished(service.submit(processing.stage("b.pdf"), ExtractionOptions.defaults()));
+        assertThat(service.getJob(first.getId())).isPresent();
+        PdfJob third = awaitFinished(service.submit(processing.stage("c.pdf"), ExtractionOptions.defaults()));
+
+        assertThat(service.getJob(first.getId())).isPresent();
+        assertThat(service.getJob(second.getId())).isEmpty();
+        assertThat(service.getJob(third.getId())).isPresent();
+    }
+
+    private static PdfProperties properties(int workers, int queueCapacity, long maxResultBytes) {
+        PdfProperties properties = new PdfProperties();
+        properties.getJobs().setWorkers(workers);
+        properties.getJobs().setQueueCapacity(queueCapacity);
+        properties.getJobs().setMaxResultBytes(maxResultBytes);
+        return properties;
+    }
+
+    private static ResponseEntity<?> submit(PdfJobController controller, String name) {
+        MultipartFile pdf = new MockMultipartFile("file", name, "application/pdf", name.getBytes());
+        return controller.submitJob(pdf, "glyph", false, "inline", null, null);
+    }
+
+    private static PdfJob awaitFinished(PdfJob job) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!job.isFinished() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(job.isFinished()).isTrue();
+        return job;
+    }
+
+    /** A one-page document with the same amount of text whatever the id. */
+    private static PDFDocument document(String id) {
+        PDFPage page = new PDFPage();
+        page.setPageNumber(1);
+        page.getTexts().add(StyledText.builder().text("x".repeat(1000)).build());
+        PDFDocument document = new PDFDocument();
+        document.setId(id);
+        document.getPages().add(page);
+        return document;
+    }
+
+    /**
+     * Stages uploads under their file name and extracts them into a one-page document named after
+     * the file, once released.
+     */
+    private class BlockingProcessingService extends PdfProcessingService {
+
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        BlockingProcessingService() {
+            super(null, null, null, null, null, null);
+        }
+
+        StagedFile stage(String name) throws IOException {
+            Path path = Files.writeString(tempDir.resolve(name), name);
+            return new StagedFile(path, name.length(), name);
+        }
+
+        @Override
+        public StagedFile stageUpload(MultipartFile pdfFile) throws IOException {
+            return stage(pdfFile.getOriginalFilename());
+        }
+
+        @Override
+        public ExtractionResult extractContent(StagedFile upload, ExtractionOptions options, PdfContentSink progressListener) throws IOException {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+            PDFDocument document = document(upload.sha256());
+            progressListener.page(document.getPages().get(0));
+            return new ExtractionResult(document, false);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.glez.frontendservice.services;
+
+import com.glez.frontendservice.config.PdfProperties;
+import com.glez.frontendservice.pdf.image.PageRenderer;
+import com.glez.frontendservice.pdf.image.StoredImage;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PdfRenderServiceTests {
+
+    @TempDir
+    Path tempDir;
+
+    private PdfRenderService service;
+
+    @AfterEach
+    void shutDown() {
+        if (service != null) {
+            service.destroy();
+        }
+    }
+
+    @Test
+    void rendersPageAndServesRepeatsFromCache() throws IOException {
+        PdfProperties properties = new PdfProperties();
+        service = new PdfRenderService(new StagingFileService(), new PageRenderer(properties), properties);
+        MultipartFile pdf = new MockMultipartFile("file", "blank.pdf", "application/pdf", blankPdf());
+
+        RenderResult first = service.render(pdf, 1, 36f, "png");
+        RenderResult second = service.render(pdf, 1, 36f, "PNG");
+
+        assertThat(first.cacheHit()).isFalse();
+        assertThat(first.image().data()).startsWith(0x89, 'P', 'N', 'G');
+        assertThat(second.cacheHit()).isTrue();
+        assertThat(service.getRendered(first.documentId(), 1, 36f, "png")).isPresent();
+        assertThatThrownBy(() -> service.render(pdf, 2, 36f, "png")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsOutOfRangeDpiAndUnknownFormats() {
+        PdfProperties properties = new PdfProperties();
+        properties.getRender().setMaxDpi(300f);
+        service = new PdfRenderService(new StagingFileService(), new PageRenderer(properties), properties);
+
+        assertThatThrownBy(() -> service.getRendered("doc", 1, 17f, "png")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.getRendered("doc", 1, 301f, "png")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.getRendered("doc", 1, 72f, "gif")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.getRendered("doc", 1, 72f, null)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(service.getRendered("doc", 1, 300f, " JPEG ")).isEmpty();
+    }
+
+    @Test
+    void rejectsRendersBeyondTheQueue() throws Exception {
+        PdfProperties properties = new PdfProperties();
+        properties.getRender().setThreads(1);
+        properties.getRender().setQueueCapacity(1);
+        BlockingRenderer renderer = new BlockingRenderer(properties);
+        service = new PdfRenderService(new StagingFileService(), renderer, properties);
+
+        Thread running = renderInBackground("running.pdf");
+        assertThat(renderer.started.await(10, TimeUnit.SECONDS)).isTrue();
+        Thread queued = renderInBackground("queued.pdf");
+        awaitWaiting(queued);
+
+        assertThatThrownBy(() -> service.render(upload("rejected.pdf"), 1, 72f, "png"))
+                .isInstanceOf(RenderQueueFullException.class);
+
+        renderer.release.countDown();
+        running.join(10_000);
+        queued.join(10_000);
+        assertThat(renderer.renders.get()).isEqualTo(2);
+    }
+
+    private Thread renderInBackground(String name) {
+        Thread thread = new Thread(() -> {
+            try {
+                service.render(upload(name), 1, 72f, "png");
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    private static void awaitWaiting(Thread thread) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (thread.getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(thread.getState()).isEqualTo(Thread.State.WAITING);
+    }
+
+    private static MultipartFile upload(String name) {
+        return new MockMultipartFile("file", name, "application/pdf", name.getBytes());
+    }
+
+    private static byte[] blankPdf() throws IOException {
+        try (PDDocument document = new PDDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            document.addPage(new PDPage());
+            document.save(out);
+            return out.toByteArray();
+        }
+    }
+
+    /** Stages uploads as temp files, using the file name as the document id. */
+    private class StagingFileService implements FileService {
+
+        @Override
+        public StagedFile stageFile(MultipartFile file) throws IOException {
+            Path path = Files.createTempFile(tempDir, "staged-", ".pdf");
+            file.transferTo(path);
+            return new StagedFile(path, file.getSize(), file.getOriginalFilename());
+        }
+
+        @Override
+        public String processFile(MultipartFile file) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public StoredFile storeFile(MultipartFile file) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Optional<StoredFile> findStoredFile(String fileId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Optional<StorageManager.Lease> acquireStoredFile(String fileId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean isValidImageType(MultipartFile file) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static class BlockingRenderer extends PageRenderer {
+
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final AtomicInteger renders = new AtomicInteger();
+
+        BlockingRenderer(PdfProperties properties) {
+            super(properties);
+        }
+
+        @Override
+        public StoredImage render(Path pdfFile, int pageNumber, float dpi, String format) throws IOException {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+            renders.incrementAndGet();
+            return new StoredImage(format, new byte[0]);
+        }
+    }
+}
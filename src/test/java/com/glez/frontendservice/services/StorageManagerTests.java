@@ -0,0 +1,142 @@
+package com.glez.frontendservice.services;
+
+import com.glez.frontendservice.config.PdfProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StorageManagerTests {
+
+    @TempDir
+    Path tempDir;
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private StorageManager storageManager;
+
+    @AfterEach
+    void shutDown() {
+        if (storageManager != null) {
+            storageManager.destroy();
+        }
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedFilesBeyondTheQuotaButNotPinnedOnes() throws Exception {
+        storageManager = storageManager(Duration.ZERO, 10);
+        StoredFile pinned = store('a', "1234");
+
+        try (StorageManager.Lease lease = storageManager.acquire(pinned.id()).orElseThrow()) {
+            StoredFile leastRecent = store('b', "1234");
+            // Over the quota now: the store schedules a sweep, which has to skip the pinned file.
+            StoredFile newest = store('c', "1234");
+            awaitStoredBytes(8);
+
+            assertThat(storageManager.find(leastRecent.id())).isEmpty();
+            assertThat(leastRecent.path()).doesNotExist();
+            assertThat(Files.readString(lease.file().path())).isEqualTo("1234");
+            assertThat(storageManager.find(newest.id())).isPresent();
+        }
+
+        assertThat(storageManager.find(pinned.id())).isPresent();
+        assertThat(registry.get("pdf.storage.evictions").tag("reason", "quota").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void evictsFilesNotAccessedWithinTheTtl() throws Exception {
+        storageManager = storageManager(Duration.ofMillis(200), 0);
+        StoredFile expired = store('a', "old");
+        StoredFile pinned = store('b', "pinned");
+        Thread.sleep(300);
+        StoredFile fresh = store('c', "new");
+
+        try (StorageManager.Lease lease = storageManager.acquire(pinned.id()).orElseThrow()) {
+            storageManager.sweep();
+        }
+        storageManager.sweep();
+
+        assertThat(storageManager.find(expired.id())).isEmpty();
+        assertThat(expired.path()).doesNotExist();
+        assertThat(storageManager.find(pinned.id())).isPresent();
+        assertThat(storageManager.find(fresh.id())).isPresent();
+        assertThat(registry.get("pdf.storage.evictions").tag("reason", "expired").functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("pdf.storage.bytes").gauge().value()).isEqualTo(9);
+    }
+
+    @Test
+    void rebuildsTheIndexFromTheStoreAndKeepsExistingCopies() throws IOException {
+        storageManager = storageManager(Duration.ZERO, 0);
+        StoredFile stored = store('a', "content");
+        storageManager.destroy();
+
+        storageManager = storageManager(Duration.ZERO, 0);
+        StoredFile again = store('a', "content");
+
+        assertThat(again.deduplicated()).isTrue();
+        assertThat(again.path()).isEqualTo(stored.path());
+        assertThat(storageManager.acquire("../" + stored.id())).isEmpty();
+        assertThat(registry.get("pdf.storage.files").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void keepsLastAccessAcrossRestartsInTheModificationTime() throws IOException {
+        storageManager = storageManager(Duration.ofMinutes(5), 0);
+        StoredFile read = store('a', "read");
+        StoredFile unread = store('b', "unread");
+        FileTime longAgo = FileTime.fromMillis(System.currentTimeMillis() - Duration.ofMinutes(10).toMillis());
+        Files.setLastModifiedTime(read.path(), longAgo);
+        Files.setLastModifiedTime(unread.path(), longAgo);
+        storageManager.destroy();
+
+        storageManager = storageManager(Duration.ofMinutes(5), 0);
+        assertThat(storageManager.find(read.id())).isPresent();
+        storageManager.destroy();
+
+        storageManager = storageManager(Duration.ofMinutes(5), 0);
+        storageManager.sweep();
+
+        assertThat(storageManager.find(read.id())).isPresent();
+        assertThat(storageManager.find(unread.id())).isEmpty();
+        assertThat(unread.path()).doesNotExist();
+    }
+
+    private StorageManager storageManager(Duration ttl, long maxBytes) {
+        PdfProperties properties = new PdfProperties();
+        properties.getStorage().setDirectory(tempDir.resolve("store").toString());
+        properties.getStorage().setTtl(ttl);
+        properties.getStorage().setMaxBytes(maxBytes);
+        registry.clear();
+        StorageManager manager = new StorageManager(properties);
+        manager.bindTo(registry);
+        return manager;
+    }
+
+    /** Stores the content under an id made of {@code digit}, a few milliseconds after the previous file. */
+    private StoredFile store(char digit, String content) throws IOException {
+        try {
+            Thread.sleep(5);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Path received = Files.writeString(Files.createTempFile(tempDir, "received-", ".tmp"), content);
+        return storageManager.store(String.valueOf(digit).repeat(64), received, content.length());
+    }
+
+    private void awaitStoredBytes(double bytes) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (registry.get("pdf.storage.bytes").gauge().value() != bytes && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(registry.get("pdf.storage.bytes").gauge().value()).isEqualTo(bytes);
+    }
+}